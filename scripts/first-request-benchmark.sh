@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Cold start to first successful GET /api/students/{id}, for the plain JVM, the fast-start profile and the
+# AppCDS archive, alone and combined.
+#
+#   ./mvnw -Pcds package -DskipTests
+#   scripts/first-request-benchmark.sh [runs] >> startup-history.csv
+#
+# Each run launches a fresh JVM, creates one student as soon as the port accepts requests and then reads it
+# back; the time reported is from launch until that GET answers 200. Output is CSV so results can be kept
+# release over release: date,revision,variant,runs,median_ms,max_ms
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-10}
+PORT=${PORT:-18080}
+MAIN=net.fernandosalas.springboot.SpringBootTestingMediumApplication
+APP=$PWD/target/app
+BASE="http://localhost:$PORT/api/students"
+
+if [[ ! -f "$APP/classpath.txt" || ! -f "$APP/app.jsa" ]]; then
+  echo "No AppCDS archive in target/app, run ./mvnw -Pcds package -DskipTests first" >&2
+  exit 1
+fi
+
+# same class path as the training run, otherwise the archive is rejected
+CLASSPATH="$PWD/target/classes:$(cat "$APP/classpath.txt")"
+REVISION=$(git describe --always --dirty 2>/dev/null || echo unknown)
+
+now_ms() {
+  date +%s%3N
+}
+
+# launches "$@" and prints the milliseconds until a created student could be read back
+first_get() {
+  local start pid id=""
+  start=$(now_ms)
+  "$@" -cp "$CLASSPATH" "$MAIN" --server.port="$PORT" --spring.main.banner-mode=off \
+    --logging.level.root=warn >"$APP/last.log" 2>&1 &
+  pid=$!
+  while [[ -z "$id" ]]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited during startup, see $APP/last.log" >&2
+      exit 1
+    fi
+    id=$(curl -sf -H 'Content-Type: application/json' \
+      -d '{"firstName":"Fernando","lastName":"Salas","email":"fernando@gmail.com"}' "$BASE" 2>/dev/null \
+      | sed -n 's/.*"id":\([0-9]*\).*/\1/p' || true)
+    [[ -n "$id" ]] || sleep 0.01
+  done
+  until curl -sf -o /dev/null "$BASE/$id"; do
+    sleep 0.01
+  done
+  echo $(( $(now_ms) - start ))
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+}
+
+report() {
+  local variant=$1; shift
+  local times=()
+  for ((i = 0; i < RUNS; i++)); do
+    times+=("$(first_get "$@")")
+  done
+  printf '%s\n' "${times[@]}" | sort -n | awk -v date="$(date -u +%F)" -v revision="$REVISION" \
+    -v variant="$variant" '{a[NR]=$1} END {
+      median = (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2)
+      printf "%s,%s,%s,%d,%d,%d\n", date, revision, variant, NR, median, a[NR]
+    }'
+}
+
+report jvm java
+report jvm-fast-start java -Dspring.profiles.active=fast-start
+report jvm-cds java -XX:SharedArchiveFile="$APP/app.jsa"
+report jvm-cds-fast-start java -XX:SharedArchiveFile="$APP/app.jsa" -Dspring.profiles.active=fast-start
@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Startup time and resident memory of the JVM, JVM+AOT, JVM+AOT+CDS and native builds.
+#
+#   ./mvnw -Paot package -DskipTests                # jar with AOT initializers, also used for the plain JVM run
+#   ./mvnw -Pnative native:compile -DskipTests      # optional, needs GraalVM
+#   scripts/startup-compare.sh [runs]
+#
+# Startup is measured from launch until /actuator/health answers UP, RSS is read from /proc once it does.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+MAIN=net.fernandosalas.springboot.SpringBootTestingMediumApplication
+JAR=$(ls target/spring-boot-testing-medium-*.jar 2>/dev/null | grep -v '\.original$' | head -1 || true)
+NATIVE=target/spring-boot-testing-medium
+WORK=target/startup
+
+if [[ -z "$JAR" ]]; then
+  echo "No jar in target/, run ./mvnw -Paot package -DskipTests first" >&2
+  exit 1
+fi
+
+# the JVM variants run from the unpacked jar, CDS cannot archive classes loaded by the nested jar class loader
+rm -rf "$WORK" && mkdir -p "$WORK/app"
+(cd "$WORK/app" && jar -xf "$OLDPWD/$JAR")
+CLASSPATH="$WORK/app/BOOT-INF/classes:$WORK/app/BOOT-INF/lib/*"
+APP_ARGS=(--server.port="$PORT" --spring.main.banner-mode=off --logging.level.root=warn)
+
+now_ms() {
+  date +%s%3N
+}
+
+# launches "$@", waits for readiness and prints "<startup ms> <rss kB>"
+measure() {
+  local start pid rss
+  start=$(now_ms)
+  "$@" "${APP_ARGS[@]}" >"$WORK/last.log" 2>&1 &
+  pid=$!
+  until curl -sf "http://localhost:$PORT/actuator/health" 2>/dev/null | grep -q '"UP"'; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited during startup, see $WORK/last.log" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  local ready=$(( $(now_ms) - start ))
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+  echo "$ready $rss"
+}
+
+median() {
+  sort -n | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2)}'
+}
+
+report() {
+  local name=$1; shift
+  local results=()
+  for ((i = 0; i < RUNS; i++)); do
+    results+=("$(measure "$@")")
+  done
+  local startup rss
+  startup=$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)
+  rss=$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)
+  printf '%-14s %10s ms %10s MB\n' "$name" "$startup" "$((rss / 1024))"
+}
+
+printf '%-14s %13s %13s\n' "build" "startup" "rss"
+report jvm java -cp "$CLASSPATH" "$MAIN"
+report jvm-aot java -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN"
+
+# training run that dumps the classes loaded during startup into a dynamic CDS archive at exit
+measure java -XX:ArchiveClassesAtExit="$WORK/app.jsa" -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN" >/dev/null
+report jvm-aot-cds java -XX:SharedArchiveFile="$WORK/app.jsa" -Dspring.aot.enabled=true -cp "$CLASSPATH" "$MAIN"
+
+if [[ -x "$NATIVE" ]]; then
+  report native "$NATIVE"
+else
+  echo "native         skipped, build it with ./mvnw -Pnative native:compile -DskipTests"
+fi
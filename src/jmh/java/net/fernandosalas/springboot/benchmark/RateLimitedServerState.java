@@ -0,0 +1,46 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+
+// the seeded application behind a real Tomcat on a random port, with the rate limiter switched by rateLimit
+@State(Scope.Benchmark)
+public class RateLimitedServerState extends StudentApplicationState {
+
+    @Param({"true", "false"})
+    public boolean rateLimit;
+
+    HttpClient httpClient;
+    URI baseUri;
+
+    @Override
+    protected void afterStart() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/api/students");
+    }
+
+    @Override
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.SERVLET;
+    }
+
+    @Override
+    protected List<String> applicationArgs() {
+        List<String> args = super.applicationArgs();
+        args.add("--server.port=0");
+        args.add("--student.rate-limit.enabled=" + rateLimit);
+        // the benchmark clients name themselves in X-Client-Id from the loopback address
+        args.add("--student.rate-limit.trusted-proxies=127.0.0.1,0:0:0:0:0:0:0:1");
+        // the lookup clients are well behaved, their own limit must not be what is measured
+        args.add("--student.rate-limit.endpoints.lookup.requests-per-second=1000000");
+        args.add("--student.rate-limit.endpoints.lookup.burst=1000000");
+        return args;
+    }
+}
@@ -0,0 +1,28 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.UUID;
+
+// the same seeded application with the students table partitioned over `shards` in-memory H2 databases
+@State(Scope.Benchmark)
+public class ShardedApplicationState extends StudentApplicationState {
+
+    @Param({"1", "2", "4"})
+    public int shards;
+
+    @Override
+    protected List<String> applicationArgs() {
+        List<String> args = super.applicationArgs();
+        String run = UUID.randomUUID().toString();
+        args.add("--student.sharding.enabled=true");
+        args.add("--spring.jpa.hibernate.ddl-auto=create");
+        for (int shard = 0; shard < shards; shard++) {
+            args.add("--student.sharding.shards[" + shard + "].url=jdbc:h2:mem:shard-" + shard + "-" + run
+                    + ";DB_CLOSE_DELAY=-1");
+            args.add("--student.sharding.shards[" + shard + "].username=sa");
+        }
+        return args;
+    }
+}
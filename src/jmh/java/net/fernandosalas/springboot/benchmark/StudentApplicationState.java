@@ -0,0 +1,91 @@
+package net.fernandosalas.springboot.benchmark;
+
+import net.fernandosalas.springboot.SpringBootTestingMediumApplication;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.service.StudentService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// application context over embedded H2 seeded with tableSize students, shared by the read benchmarks
+@State(Scope.Benchmark)
+public class StudentApplicationState {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"10000"})
+    public int tableSize;
+
+    // "none" measures the data path, "caffeine" the cached service
+    @Param({"none"})
+    public String cacheType;
+
+    ConfigurableApplicationContext context;
+    StudentService studentService;
+    StudentRepository studentRepository;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(SpringBootTestingMediumApplication.class)
+                .web(webApplicationType())
+                .run(applicationArgs().toArray(String[]::new));
+        studentService = context.getBean(StudentService.class);
+        studentRepository = context.getBean(StudentRepository.class);
+        seed();
+        afterStart();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.NONE;
+    }
+
+    protected List<String> applicationArgs() {
+        return new ArrayList<>(List.of("--spring.cache.type=" + cacheType));
+    }
+
+    // JMH does not order the @Setup methods of a state and its subclass, subclasses needing the context start here
+    protected void afterStart() {
+    }
+
+    private void seed() {
+        ids = new long[tableSize];
+        for (int from = 0; from < tableSize; from += SEED_CHUNK) {
+            List<Student> students = new ArrayList<>(SEED_CHUNK);
+            for (int i = from; i < Math.min(from + SEED_CHUNK, tableSize); i++) {
+                students.add(student(i));
+            }
+            studentService.saveStudents(students);
+            for (int i = 0; i < students.size(); i++) {
+                ids[from + i] = students.get(i).getId();
+            }
+        }
+    }
+
+    int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(tableSize);
+    }
+
+    long idAt(int index) {
+        return ids[index];
+    }
+
+    static Student student(long n) {
+        return Student.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .email("student" + n + "@example.com")
+                .build();
+    }
+}
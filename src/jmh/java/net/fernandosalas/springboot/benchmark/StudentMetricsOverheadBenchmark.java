@@ -0,0 +1,40 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// cost of the metrics aspect: the same calls with student.metrics.enabled on and off.
+// -p cacheType=caffeine measures it against a cache hit, where the relative overhead is largest
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentMetricsOverheadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class InstrumentedApplicationState extends StudentApplicationState {
+
+        @Param({"true", "false"})
+        public boolean metricsEnabled;
+
+        @Override
+        protected List<String> applicationArgs() {
+            List<String> args = super.applicationArgs();
+            args.add("--student.metrics.enabled=" + metricsEnabled);
+            return args;
+        }
+    }
+
+    @Benchmark
+    public Object getStudentById(InstrumentedApplicationState state) {
+        return state.studentService.getStudentById(state.idAt(state.randomIndex()));
+    }
+
+    @Benchmark
+    public Object findById(InstrumentedApplicationState state) {
+        return state.studentRepository.findById(state.idAt(state.randomIndex()));
+    }
+}
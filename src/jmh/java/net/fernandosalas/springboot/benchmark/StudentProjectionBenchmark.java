@@ -0,0 +1,72 @@
+package net.fernandosalas.springboot.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import net.fernandosalas.springboot.entity.Student;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// managed entities against StudentView projections for the lookup and list endpoints, fetch plus JSON body.
+// Compare gc.alloc.rate.norm (bytes per request) from -prof gc:
+//   mvn -Pbenchmark verify -DskipTests -Djmh.args="StudentProjection -prof gc"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentProjectionBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @State(Scope.Benchmark)
+    public static class ProjectionState {
+        ObjectMapper objectMapper;
+        EntityManager entityManager;
+        TransactionTemplate transactionTemplate;
+
+        @Setup(Level.Trial)
+        public void setup(StudentApplicationState application) {
+            objectMapper = application.context.getBean(ObjectMapper.class);
+            entityManager = application.context.getBean(EntityManager.class);
+            transactionTemplate = application.context.getBean(TransactionTemplate.class);
+        }
+    }
+
+    @Benchmark
+    public byte[] lookupEntity(StudentApplicationState application, ProjectionState state)
+            throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(
+                application.studentRepository.findById(application.idAt(application.randomIndex())));
+    }
+
+    @Benchmark
+    public byte[] lookupView(StudentApplicationState application, ProjectionState state)
+            throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(
+                application.studentRepository.findViewById(application.idAt(application.randomIndex())));
+    }
+
+    // the entity page as it was read before the projections: managed, dirty-checked rows in a read-write transaction
+    @Benchmark
+    public byte[] pageEntities(StudentApplicationState application, ProjectionState state)
+            throws JsonProcessingException {
+        long after = application.idAt(application.randomIndex());
+        List<Student> students = state.transactionTemplate.execute(status -> state.entityManager
+                .createQuery("select s from Student s where s.id > :id order by s.id", Student.class)
+                .setParameter("id", after)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList());
+        return state.objectMapper.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public byte[] pageViews(StudentApplicationState application, ProjectionState state)
+            throws JsonProcessingException {
+        return state.objectMapper.writeValueAsBytes(
+                application.studentService.getStudents(application.idAt(application.randomIndex()), PAGE_SIZE));
+    }
+}
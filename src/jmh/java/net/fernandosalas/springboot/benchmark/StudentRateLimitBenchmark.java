@@ -0,0 +1,63 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+// a bulk client paging through GET /api/students with 16 threads next to 4 threads of lookups by id, over HTTP.
+// Compare the lookup p0.99 with rateLimit=true and false; without the limiter the pages hold every pooled
+// connection and lookups queue behind them, with it the bulk client mostly gets 429 and lookups keep their latency:
+//   mvn -Pbenchmark verify -DskipTests -Djmh.args="StudentRateLimit -p tableSize=100000"
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StudentRateLimitBenchmark {
+
+    private static final String CLIENT_HEADER = "X-Client-Id";
+
+    // each lookup thread is its own client
+    @State(Scope.Thread)
+    public static class LookupClient {
+        String clientId;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            clientId = "lookup-" + Thread.currentThread().getId();
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(16)
+    public void bulk(RateLimitedServerState server, Blackhole blackhole) throws IOException, InterruptedException {
+        long after = server.idAt(server.randomIndex());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.baseUri + "?size=1000&after=" + after))
+                .header(CLIENT_HEADER, "bulk")
+                .build();
+        HttpResponse<byte[]> response = server.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        blackhole.consume(response.statusCode());
+        blackhole.consume(response.body());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int lookup(RateLimitedServerState server, LookupClient client) throws IOException, InterruptedException {
+        long id = server.idAt(server.randomIndex());
+        HttpRequest request = HttpRequest.newBuilder(URI.create(server.baseUri + "/" + id))
+                .header(CLIENT_HEADER, client.clientId)
+                .build();
+        HttpResponse<Void> response = server.httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Lookup answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
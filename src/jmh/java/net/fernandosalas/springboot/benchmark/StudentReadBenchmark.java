@@ -0,0 +1,79 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+// read paths of the service and repository; SampleTime reports the latency percentiles,
+// -prof gc (on by default in the benchmark profile) the allocation rate.
+// The indexed lookups should stay flat across -p tableSize=10000,100000,1000000,10000000
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentReadBenchmark {
+
+    private static final Pageable NAME_PAGE = PageRequest.of(0, 10);
+
+    @Benchmark
+    public Object getStudentById(StudentApplicationState state) {
+        return state.studentService.getStudentById(state.idAt(state.randomIndex()));
+    }
+
+    @Benchmark
+    public Object findByEmail(StudentApplicationState state) {
+        return state.studentRepository.findByEmail("student" + state.randomIndex() + "@example.com");
+    }
+
+    @Benchmark
+    public Object findByJPQLIndexParams(StudentApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentRepository.findByJPQLIndexParams("First" + n, "Last" + n, NAME_PAGE);
+    }
+
+    @Benchmark
+    public Object findByJPQLNamedParams(StudentApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentRepository.findByJPQLNamedParams("First" + n, "Last" + n, NAME_PAGE);
+    }
+
+    @Benchmark
+    public Object findByNativeIndexParams(StudentApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentRepository.findByNativeIndexParams("First" + n, "Last" + n, NAME_PAGE);
+    }
+
+    @Benchmark
+    public Object findByNativeNamedParams(StudentApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentRepository.findByNativeNamedParams("First" + n, "Last" + n, NAME_PAGE);
+    }
+
+    @Benchmark
+    public Object getStudentsPage(StudentApplicationState state) {
+        return state.studentService.getStudents(state.idAt(state.randomIndex()), 50);
+    }
+
+    // type-ahead over the in-memory index; run with -p tableSize=1000000 for the million-student target
+    @Benchmark
+    public Object searchPrefix(StudentApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentService.searchStudents("first" + n + " last" + n / 10, 0, 10);
+    }
+
+    @Benchmark
+    public Object searchFuzzy(StudentApplicationState state) {
+        // a dropped character in the last name; every generated last name starts with "la",
+        // so this is the worst case where the typo scan runs into its term cap
+        String lastName = "Last" + state.randomIndex();
+        return state.studentService.searchStudents(lastName.substring(0, 2) + lastName.substring(3), 0, 10);
+    }
+
+    @Benchmark
+    public Object getAllStudents(StudentApplicationState state) {
+        return state.studentService.getAllStudents();
+    }
+}
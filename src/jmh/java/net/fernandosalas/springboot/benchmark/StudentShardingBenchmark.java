@@ -0,0 +1,49 @@
+package net.fernandosalas.springboot.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// cost of the sharding layer as shards are added: point lookups should stay flat, fan-out queries pay one
+// parallel round trip per shard plus the merge. Compare -p shards=1,2,4 and -p tableSize=100000,1000000;
+// the in-memory shards share one machine, so this measures routing and merge overhead, not added capacity
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class StudentShardingBenchmark {
+
+    private static final Pageable NAME_PAGE = PageRequest.of(0, 10);
+
+    @Benchmark
+    public Object pointLookup(ShardedApplicationState state) {
+        return state.studentRepository.findViewById(state.idAt(state.randomIndex()));
+    }
+
+    @Benchmark
+    public Object emailLookup(ShardedApplicationState state) {
+        return state.studentRepository.findViewByEmail("student" + state.randomIndex() + "@example.com");
+    }
+
+    @Benchmark
+    public Object nameQuery(ShardedApplicationState state) {
+        int n = state.randomIndex();
+        return state.studentRepository.findByJPQLNamedParams("First" + n, "Last" + n, NAME_PAGE);
+    }
+
+    @Benchmark
+    public Object keysetPage(ShardedApplicationState state) {
+        return state.studentService.getStudents(state.idAt(state.randomIndex()), 50);
+    }
+
+    @Benchmark
+    public Object insert(ShardedApplicationState state) {
+        return state.studentRepository.save(StudentApplicationState.student(
+                ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,61 @@
+package net.fernandosalas.springboot.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// JSON against CBOR for a page of students, encode and decode without the web layer around them.
+// The payload sizes are printed once per trial; bytes allocated per operation come from -prof gc:
+//   mvn -Pbenchmark verify -DskipTests -Djmh.args="StudentWireFormat -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentWireFormatBenchmark {
+
+    @Param({"1000", "100000"})
+    int listSize;
+
+    @Param({"json", "cbor"})
+    String format;
+
+    private ObjectMapper mapper;
+    private StudentPage page;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // same settings as the mapper Spring Boot configures, the CBOR one is a copy like WireFormatConfig makes
+        ObjectMapper json = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper = "cbor".equals(format) ? json.copyWith(new CBORFactory()) : json;
+
+        List<StudentView> students = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            students.add(new StudentView(i + 1, "Fernando" + i, "Salas" + i, "student" + i + "@gmail.com", 0, null));
+        }
+        page = new StudentPage(students, (long) listSize);
+        encoded = mapper.writeValueAsBytes(page);
+        System.out.printf("%n%s, %d students: %d bytes (%.1f per student)%n",
+                format, listSize, encoded.length, (double) encoded.length / listSize);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public StudentPage deserialize() throws IOException {
+        return mapper.readValue(encoded, StudentPage.class);
+    }
+}
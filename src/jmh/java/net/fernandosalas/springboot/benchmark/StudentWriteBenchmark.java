@@ -0,0 +1,67 @@
+package net.fernandosalas.springboot.benchmark;
+
+import net.fernandosalas.springboot.entity.Student;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// rows/sec of the single-row save path against the chunked bulk path
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(StudentWriteBenchmark.ROWS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StudentWriteBenchmark {
+
+    static final int ROWS = 1000;
+
+    // every iteration writes into a freshly started and seeded application, so rows, search index entries and
+    // email filter bits left by earlier iterations do not slow down later ones
+    @State(Scope.Benchmark)
+    public static class FreshApplicationState extends StudentApplicationState {
+
+        @Param({"100", "1000"})
+        public int chunkSize;
+
+        @Override
+        protected List<String> applicationArgs() {
+            List<String> args = super.applicationArgs();
+            args.add("--student.batch.chunk-size=" + chunkSize);
+            return args;
+        }
+
+        // each context gets an embedded database of its own, closing drops the previous one's tables
+        @TearDown(Level.Iteration)
+        public void restartApplication() {
+            stopApplication();
+            startApplication();
+        }
+    }
+
+    // written ids start above the seeded rows so emails stay unique
+    private long sequence = Integer.MAX_VALUE;
+
+    @Benchmark
+    public void saveStudentOneByOne(FreshApplicationState state) {
+        for (Student student : newStudents()) {
+            state.studentService.saveStudent(student);
+        }
+    }
+
+    @Benchmark
+    public Object saveStudentsInBatches(FreshApplicationState state) {
+        return state.studentService.saveStudents(newStudents());
+    }
+
+    private List<Student> newStudents() {
+        List<Student> students = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            students.add(StudentApplicationState.student(sequence++));
+        }
+        return students;
+    }
+}
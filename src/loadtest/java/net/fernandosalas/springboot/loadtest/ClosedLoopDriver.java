@@ -0,0 +1,68 @@
+package net.fernandosalas.springboot.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+// N clients each sending the next request as soon as the previous one answered
+public class ClosedLoopDriver {
+
+    // returns the HTTP status of one request
+    @FunctionalInterface
+    public interface Request {
+        int send() throws Exception;
+    }
+
+    public record Result(long requests, long errors, Duration elapsed, Histogram latencies) {
+
+        public double throughput() {
+            return requests / (elapsed.toNanos() / 1e9);
+        }
+
+        public double percentileMillis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+
+    public static Result run(int clients, Duration duration, Request request) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Histogram> histograms = new ArrayList<>(clients);
+        CountDownLatch done = new CountDownLatch(clients);
+        long start = System.nanoTime();
+        for (int i = 0; i < clients; i++) {
+            Histogram histogram = new Histogram(Duration.ofMinutes(1).toNanos(), 3);
+            histograms.add(histogram);
+            Thread client = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = request.send();
+                        } catch (Exception e) {
+                            status = 0;
+                        }
+                        histogram.recordValue(Math.min(System.nanoTime() - sent, histogram.getHighestTrackableValue()));
+                        if (status < 200 || status >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+        done.await();
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Histogram total = new Histogram(Duration.ofMinutes(1).toNanos(), 3);
+        histograms.forEach(total::add);
+        return new Result(total.getTotalCount(), errors.get(), elapsed, total);
+    }
+}
@@ -0,0 +1,72 @@
+package net.fernandosalas.springboot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.Map;
+
+// diffs two MixedLoadTest reports operation by operation and exits with 1 when the second build is worse than the
+// first: p99 or throughput beyond the tolerance, more errors or dropped requests, or a heap growth the first had not
+// args: baseline.json current.json [tolerance-percent=10]
+public class CompareReports {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("usage: CompareReports baseline.json current.json [tolerance-percent]");
+            System.exit(2);
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode baseline = objectMapper.readTree(new File(args[0]));
+        JsonNode current = objectMapper.readTree(new File(args[1]));
+        double tolerance = (args.length > 2 ? Double.parseDouble(args[2]) : 10) / 100;
+
+        System.out.printf("%s (%s) against %s (%s)%n%n", args[1], current.path("revision").asText(),
+                args[0], baseline.path("revision").asText());
+        System.out.printf("%-8s %12s %12s %12s %12s %8s %8s%n",
+                "op", "p99 ms", "change", "req/s", "change", "errors", "dropped");
+        boolean regressed = compare("total", baseline.path("total"), current.path("total"), tolerance);
+        Iterator<Map.Entry<String, JsonNode>> operations = current.path("operations").fields();
+        while (operations.hasNext()) {
+            Map.Entry<String, JsonNode> operation = operations.next();
+            JsonNode before = baseline.path("operations").path(operation.getKey());
+            if (before.isMissingNode()) {
+                System.out.printf("%-8s not in the baseline%n", operation.getKey());
+                continue;
+            }
+            regressed |= compare(operation.getKey(), before, operation.getValue(), tolerance);
+        }
+
+        // a run too short for the leak check reports suspectedLeak false, it is never held against the build
+        boolean leak = current.path("heap").path("suspectedLeak").asBoolean()
+                && !baseline.path("heap").path("suspectedLeak").asBoolean();
+        System.out.printf("%nheap growth %.1f MB/hour, baseline %.1f MB/hour%s%n",
+                current.path("heap").path("growthMbPerHour").asDouble(),
+                baseline.path("heap").path("growthMbPerHour").asDouble(),
+                leak ? ", above the limit" : current.path("heap").path("leakChecked").asBoolean() ? "" : ", not checked");
+        if (regressed || leak) {
+            System.out.println("regression beyond " + Math.round(tolerance * 100) + "%");
+            System.exit(1);
+        }
+    }
+
+    // prints one row and tells whether it regressed
+    private static boolean compare(String name, JsonNode before, JsonNode after, double tolerance) {
+        double p99Before = before.path("latencyMs").path("p99").asDouble();
+        double p99After = after.path("latencyMs").path("p99").asDouble();
+        double throughputBefore = before.path("throughput").asDouble();
+        double throughputAfter = after.path("throughput").asDouble();
+        long errors = after.path("errors").asLong() - before.path("errors").asLong();
+        long dropped = after.path("dropped").asLong() - before.path("dropped").asLong();
+        double p99Change = change(p99Before, p99After);
+        double throughputChange = change(throughputBefore, throughputAfter);
+        System.out.printf("%-8s %12.2f %+11.1f%% %12.0f %+11.1f%% %+8d %+8d%n", name, p99After, p99Change * 100,
+                throughputAfter, throughputChange * 100, errors, dropped);
+        return p99Change > tolerance || throughputChange < -tolerance || errors > 0 || dropped > 0;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before;
+    }
+}
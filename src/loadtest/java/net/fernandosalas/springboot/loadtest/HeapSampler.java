@@ -0,0 +1,125 @@
+package net.fernandosalas.springboot.loadtest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// heap in use right after the collections the JVM runs anyway, taken from its GC notifications: the lowest value per
+// interval, the floor the live data sits on. Nothing is forced, so the sampler adds no pauses to the latencies and
+// works under -XX:+DisableExplicitGC. An interval without a collection has no sample. The application and the load
+// driver share the JVM, but the driver only keeps fixed-size histograms, so growth here is growth in the application.
+public class HeapSampler implements AutoCloseable {
+
+    // fewer points than this in the steady half and one slow collection decides the slope
+    static final int MIN_STEADY_SAMPLES = 6;
+
+    public record Sample(long seconds, long usedAfterGcBytes) {
+    }
+
+    // checked is false when the steady half of the run was too short or saw too few collections to tell a leak
+    public record Verdict(double growthMbPerHour, boolean checked, boolean suspectedLeak) {
+    }
+
+    private final List<Sample> samples = new ArrayList<>();
+    private final Set<String> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(Collectors.toSet());
+    private final List<NotificationEmitter> collectors = new ArrayList<>();
+    private final NotificationListener listener = (notification, handback) -> {
+        if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            afterCollection(GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                    .getGcInfo().getMemoryUsageAfterGc());
+        }
+    };
+    private long lowestSinceSample = Long.MAX_VALUE;
+
+    public HeapSampler() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+                collectors.add(emitter);
+            }
+        }
+    }
+
+    // the lowest heap after a collection since the previous call, empty when no collection ran in between
+    public synchronized Optional<Sample> sample(Duration elapsed) {
+        if (lowestSinceSample == Long.MAX_VALUE) {
+            return Optional.empty();
+        }
+        Sample sample = new Sample(elapsed.toSeconds(), lowestSinceSample);
+        samples.add(sample);
+        lowestSinceSample = Long.MAX_VALUE;
+        return Optional.of(sample);
+    }
+
+    public synchronized List<Sample> samples() {
+        return List.copyOf(samples);
+    }
+
+    // least-squares slope over the second half of the run, once caches and pools have filled up. Below
+    // minSteadyState of it a warm-up ramp extrapolated to an hour reads as a leak, so there is no verdict then
+    public static Verdict verdict(List<Sample> samples, Duration duration, Duration minSteadyState,
+                                  double maxGrowthMbPerHour) {
+        long steadyFrom = duration.toSeconds() / 2;
+        List<Sample> steady = samples.stream()
+                .filter(sample -> sample.seconds() >= steadyFrom)
+                .toList();
+        double growth = slopeMbPerHour(steady);
+        boolean checked = duration.toSeconds() - steadyFrom >= minSteadyState.toSeconds()
+                && steady.size() >= MIN_STEADY_SAMPLES;
+        return new Verdict(growth, checked, checked && growth > maxGrowthMbPerHour);
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter collector : collectors) {
+            try {
+                collector.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // already gone
+            }
+        }
+    }
+
+    private synchronized void afterCollection(Map<String, MemoryUsage> afterGc) {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : afterGc.entrySet()) {
+            if (heapPools.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        lowestSinceSample = Math.min(lowestSinceSample, used);
+    }
+
+    private static double slopeMbPerHour(List<Sample> samples) {
+        if (samples.size() < 2) {
+            return 0;
+        }
+        double meanSeconds = samples.stream().mapToLong(Sample::seconds).average().orElse(0);
+        double meanBytes = samples.stream().mapToLong(Sample::usedAfterGcBytes).average().orElse(0);
+        double covariance = 0;
+        double variance = 0;
+        for (Sample sample : samples) {
+            covariance += (sample.seconds() - meanSeconds) * (sample.usedAfterGcBytes() - meanBytes);
+            variance += (sample.seconds() - meanSeconds) * (sample.seconds() - meanSeconds);
+        }
+        return variance == 0 ? 0 : covariance / variance * 3600 / (1024 * 1024);
+    }
+}
@@ -0,0 +1,88 @@
+package net.fernandosalas.springboot.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongUnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+
+// the leak verdict on synthetic samples, run by every -Ploadtest build ahead of the load test
+public class HeapSamplerTest {
+
+    private static final long MB = 1024 * 1024;
+    private static final Duration MIN_STEADY_STATE = Duration.ofMinutes(10);
+
+    @DisplayName("JUnit test for the leak verdict on a short run")
+    @Test
+    public void givenWarmUpRampOnShortRun_whenVerdict_thenNotChecked() {
+        //given - precondition or setup
+        // the default 60s run at 10s intervals, caches filling up by 20 MB per interval
+        List<HeapSampler.Sample> samples = samples(60, 10, seconds -> 100 * MB + seconds * 2 * MB);
+
+        // when - action or the behavior we are going to test
+        HeapSampler.Verdict verdict = HeapSampler.verdict(samples, Duration.ofSeconds(60), MIN_STEADY_STATE, 64);
+
+        // then - verify the output
+        assertThat(verdict.growthMbPerHour()).isGreaterThan(64);
+        assertThat(verdict.checked()).isFalse();
+        assertThat(verdict.suspectedLeak()).isFalse();
+    }
+
+    @DisplayName("JUnit test for the leak verdict on a soak run that levels off")
+    @Test
+    public void givenRampInFirstHalfOfSoakRun_whenVerdict_thenNoLeak() {
+        //given - precondition or setup
+        List<HeapSampler.Sample> samples = samples(3600, 60,
+                seconds -> 100 * MB + Math.min(seconds, 1200) * MB / 10 + (seconds / 60 % 3) * MB);
+
+        // when - action or the behavior we are going to test
+        HeapSampler.Verdict verdict = HeapSampler.verdict(samples, Duration.ofSeconds(3600), MIN_STEADY_STATE, 64);
+
+        // then - verify the output
+        assertThat(verdict.checked()).isTrue();
+        assertThat(verdict.suspectedLeak()).isFalse();
+    }
+
+    @DisplayName("JUnit test for the leak verdict on a soak run that keeps growing")
+    @Test
+    public void givenSteadyGrowthOnSoakRun_whenVerdict_thenSuspectedLeak() {
+        //given - precondition or setup
+        // 2 MB a minute, 120 MB an hour
+        List<HeapSampler.Sample> samples = samples(3600, 60, seconds -> 100 * MB + seconds * 2 * MB / 60);
+
+        // when - action or the behavior we are going to test
+        HeapSampler.Verdict verdict = HeapSampler.verdict(samples, Duration.ofSeconds(3600), MIN_STEADY_STATE, 64);
+
+        // then - verify the output
+        assertThat(verdict.growthMbPerHour()).isCloseTo(120, within(0.1));
+        assertThat(verdict.checked()).isTrue();
+        assertThat(verdict.suspectedLeak()).isTrue();
+    }
+
+    @DisplayName("JUnit test for the leak verdict with too few collections")
+    @Test
+    public void givenFewCollectionsInSteadyHalf_whenVerdict_thenNotChecked() {
+        //given - precondition or setup
+        // a collection every 10 minutes of a one hour run, three of them in the second half
+        List<HeapSampler.Sample> samples = samples(3600, 600, seconds -> 100 * MB + seconds * 2 * MB / 60);
+
+        // when - action or the behavior we are going to test
+        HeapSampler.Verdict verdict = HeapSampler.verdict(samples, Duration.ofSeconds(3600), MIN_STEADY_STATE, 64);
+
+        // then - verify the output
+        assertThat(verdict.checked()).isFalse();
+        assertThat(verdict.suspectedLeak()).isFalse();
+    }
+
+    private static List<HeapSampler.Sample> samples(long seconds, long interval, LongUnaryOperator usedAt) {
+        List<HeapSampler.Sample> samples = new ArrayList<>();
+        for (long at = interval; at <= seconds; at += interval) {
+            samples.add(new HeapSampler.Sample(at, usedAt.applyAsLong(at)));
+        }
+        return samples;
+    }
+}
@@ -0,0 +1,95 @@
+package net.fernandosalas.springboot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.fernandosalas.springboot.SpringBootTestingMediumApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// the application on a random port with embedded H2, plus the HTTP client the load drivers share
+public class LoadTestApplication implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final URI baseUri;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private LoadTestApplication(ConfigurableApplicationContext context) {
+        this.context = context;
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.baseUri = URI.create("http://localhost:" + port + "/api/students");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static LoadTestApplication start(String... properties) {
+        List<String> args = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        // every load client shares one address, the limiter would measure itself unless a test asks for it
+        if (args.stream().noneMatch(arg -> arg.startsWith("--student.rate-limit.enabled="))) {
+            args.add("--student.rate-limit.enabled=false");
+        }
+        return new LoadTestApplication(new SpringApplicationBuilder(SpringBootTestingMediumApplication.class)
+                .run(args.toArray(String[]::new)));
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    public URI uri(String path) {
+        return URI.create(baseUri + path);
+    }
+
+    public ConfigurableApplicationContext context() {
+        return context;
+    }
+
+    // creates students 0..count-1 through the bulk endpoint and returns their ids
+    public long[] seed(int count) throws IOException, InterruptedException {
+        long[] ids = new long[count];
+        int chunk = 1000;
+        for (int from = 0; from < count; from += chunk) {
+            StringBuilder body = new StringBuilder("[");
+            int to = Math.min(from + chunk, count);
+            for (int i = from; i < to; i++) {
+                body.append(i == from ? "" : ",").append(studentJson(i));
+            }
+            body.append(']');
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(uri("/batch"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode results = objectMapper.readTree(response.body());
+            for (int i = 0; i < results.size(); i++) {
+                ids[from + i] = results.get(i).get("id").asLong();
+            }
+        }
+        return ids;
+    }
+
+    public static String studentJson(long n) {
+        return "{\"firstName\":\"First" + n + "\",\"lastName\":\"Last" + n
+                + "\",\"email\":\"student" + n + "@example.com\"}";
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,292 @@
+package net.fernandosalas.springboot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import net.fernandosalas.springboot.controller.IdempotencyKeyStore;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// create, read, update, delete, list and search traffic at a fixed rate against the application on embedded H2.
+// Prints throughput and latency per interval and per operation, tracks the heap after GC and writes a JSON report
+// that CompareReports diffs against the one of another build. A soak run is the same test for longer.
+// args, key=value in any order:
+//   rate=500 seconds=60 warmup=10 interval=10 students=10000 workers=200 max-heap-growth=64
+//   mix=read:50,list:10,search:5,create:10,update:15,delete:10 report=target/loadtest/mixed.json
+//   --<property>=<value> is passed to the application, e.g. --student.rate-limit.enabled=true
+// soak: -Dloadtest.args="seconds=3600 interval=60"; the leak check needs 20 minutes or more, see MIN_STEADY_STATE
+public class MixedLoadTest {
+
+    private static final String DEFAULT_MIX = "read:50,list:10,search:5,create:10,update:15,delete:10";
+    // the second half of the run the heap slope is taken over, shorter and caches still filling up look like a leak
+    private static final Duration MIN_STEADY_STATE = Duration.ofMinutes(10);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> properties = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                properties.add(arg.substring(2));
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("seconds", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration interval = Duration.ofSeconds(Long.parseLong(options.getOrDefault("interval", "10")));
+        int students = Integer.parseInt(options.getOrDefault("students", "10000"));
+        int workers = Integer.parseInt(options.getOrDefault("workers", "200"));
+        double maxHeapGrowth = Double.parseDouble(options.getOrDefault("max-heap-growth", "64"));
+        Map<String, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        File reportFile = new File(options.getOrDefault("report", "target/loadtest/mixed.json"));
+        Instant startedAt = Instant.now();
+
+        try (LoadTestApplication application = LoadTestApplication.start(properties.toArray(String[]::new))) {
+            StudentTraffic traffic = new StudentTraffic(application, application.seed(students), students);
+            List<OpenLoopDriver.Operation> operations = new ArrayList<>();
+            mix.forEach((name, weight) -> operations.add(new OpenLoopDriver.Operation(name, weight, traffic.request(name))));
+
+            if (!warmup.isZero()) {
+                System.out.printf("warming up for %ds at %.0f req/s%n", warmup.toSeconds(), rate);
+                OpenLoopDriver.run(rate, warmup, warmup, workers, operations, (elapsed, latencies) -> {
+                });
+            }
+
+            HeapSampler heap = new HeapSampler();
+            List<Map<String, Object>> intervals = new ArrayList<>();
+            long[] previousMillis = {0};
+            System.out.printf("%8s %10s %10s %10s %10s%n", "seconds", "req/s", "p50 ms", "p99 ms", "heap MB");
+            Map<String, OpenLoopDriver.OperationStats> stats = OpenLoopDriver.run(rate, duration, interval, workers,
+                    operations, (elapsed, latencies) -> {
+                        Histogram all = new Histogram(3);
+                        latencies.values().forEach(all::add);
+                        // the last flush right after a full interval has nothing in it
+                        if (all.getTotalCount() == 0 && elapsed.toMillis() - previousMillis[0] < 1000) {
+                            return;
+                        }
+                        Optional<HeapSampler.Sample> heapSample = heap.sample(elapsed);
+                        double seconds = Math.max(1e-3, (elapsed.toMillis() - previousMillis[0]) / 1000.0);
+                        previousMillis[0] = elapsed.toMillis();
+                        // null when no collection ran during the interval
+                        Long heapMb = heapSample.map(sample -> sample.usedAfterGcBytes() / (1024 * 1024)).orElse(null);
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("seconds", elapsed.toSeconds());
+                        row.put("requests", all.getTotalCount());
+                        row.put("throughput", round(all.getTotalCount() / seconds));
+                        row.put("p99Ms", millis(all, 99));
+                        row.put("heapAfterGcMb", heapMb);
+                        intervals.add(row);
+                        System.out.printf("%8d %10.0f %10.2f %10.2f %10s%n", elapsed.toSeconds(),
+                                all.getTotalCount() / seconds, millis(all, 50), millis(all, 99),
+                                heapMb == null ? "-" : heapMb);
+                    });
+            heap.close();
+
+            System.out.printf("%n%-8s %10s %10s %10s %10s %10s %8s %8s%n",
+                    "op", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors", "dropped");
+            Map<String, Object> operationsReport = new LinkedHashMap<>();
+            Histogram total = new Histogram(3);
+            long errors = 0;
+            long dropped = 0;
+            for (Map.Entry<String, OpenLoopDriver.OperationStats> entry : stats.entrySet()) {
+                OpenLoopDriver.OperationStats operation = entry.getValue();
+                Histogram latencies = operation.latencies();
+                total.add(latencies);
+                errors += operation.errors();
+                dropped += operation.dropped();
+                Map<String, Object> summary = summary(latencies, duration, operation.errors(), operation.dropped());
+                Map<String, Long> statuses = new LinkedHashMap<>();
+                operation.statuses().forEach((status, count) -> statuses.put(Integer.toString(status), count));
+                summary.put("statuses", statuses);
+                operationsReport.put(entry.getKey(), summary);
+                System.out.printf("%-8s %10d %10.0f %10.2f %10.2f %10.2f %8d %8d%n", entry.getKey(),
+                        latencies.getTotalCount(), latencies.getTotalCount() / (double) duration.toSeconds(),
+                        millis(latencies, 50), millis(latencies, 99), millis(latencies, 99.9),
+                        operation.errors(), operation.dropped());
+            }
+
+            HeapSampler.Verdict leak = HeapSampler.verdict(heap.samples(), duration, MIN_STEADY_STATE, maxHeapGrowth);
+            System.out.printf("%nheap after GC grows %.1f MB/hour over the second half of the run%s%n",
+                    leak.growthMbPerHour(), leak.suspectedLeak() ? ", above the " + maxHeapGrowth + " MB/hour limit"
+                            : leak.checked() ? "" : ", not checked for a leak: that takes " + MIN_STEADY_STATE.toMinutes()
+                            + " minutes or more of it and " + HeapSampler.MIN_STEADY_SAMPLES + " intervals with a collection");
+
+            Map<String, Object> config = new LinkedHashMap<>();
+            config.put("rate", rate);
+            config.put("seconds", duration.toSeconds());
+            config.put("warmupSeconds", warmup.toSeconds());
+            config.put("intervalSeconds", interval.toSeconds());
+            config.put("students", students);
+            config.put("workers", workers);
+            config.put("mix", mix);
+            config.put("applicationProperties", properties);
+            Map<String, Object> heapReport = new LinkedHashMap<>();
+            heapReport.put("growthMbPerHour", round(leak.growthMbPerHour()));
+            heapReport.put("maxGrowthMbPerHour", maxHeapGrowth);
+            heapReport.put("leakChecked", leak.checked());
+            heapReport.put("suspectedLeak", leak.suspectedLeak());
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("test", "mixed");
+            report.put("revision", revision());
+            report.put("startedAt", startedAt.toString());
+            report.put("java", Runtime.version().toString());
+            report.put("config", config);
+            report.put("total", summary(total, duration, errors, dropped));
+            report.put("operations", operationsReport);
+            report.put("heap", heapReport);
+            report.put("intervals", intervals);
+            reportFile.getAbsoluteFile().getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(reportFile, report);
+            System.out.println("report written to " + reportFile);
+        }
+    }
+
+    // keeps the table at a steady size: creates add to the pool of known ids, deletes take from it
+    static final class StudentTraffic {
+        private final LoadTestApplication application;
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final int seeded;
+        private final AtomicLong sequence = new AtomicLong();
+        private long[] ids;
+        private int size;
+
+        StudentTraffic(LoadTestApplication application, long[] seededIds, int seeded) {
+            this.application = application;
+            this.ids = seededIds.clone();
+            this.size = seededIds.length;
+            this.seeded = seeded;
+        }
+
+        ClosedLoopDriver.Request request(String operation) {
+            return switch (operation) {
+                case "read" -> () -> send(get("/" + randomId()));
+                case "list" -> () -> send(get("?size=50&after=" + randomId()));
+                case "search" -> () -> send(get("/search?q=First" + ThreadLocalRandom.current().nextInt(seeded)));
+                case "create" -> this::create;
+                case "update" -> () -> send(HttpRequest.newBuilder(application.uri("/" + randomId()))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(studentJson("updated", sequence.incrementAndGet())))
+                        .build());
+                case "delete" -> () -> {
+                    long id = removeRandomId();
+                    return send(HttpRequest.newBuilder(application.uri("/" + id)).DELETE().build());
+                };
+                default -> throw new IllegalArgumentException("Unknown operation " + operation
+                        + ", expected read, list, search, create, update or delete");
+            };
+        }
+
+        private int create() throws IOException, InterruptedException {
+            HttpResponse<String> response = application.httpClient().send(HttpRequest.newBuilder(application.uri(""))
+                            .header("Content-Type", "application/json")
+                            .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, UUID.randomUUID().toString())
+                            .POST(HttpRequest.BodyPublishers.ofString(studentJson("created", sequence.incrementAndGet())))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            if (response.statusCode() == 201) {
+                JsonNode student = objectMapper.readTree(response.body());
+                add(student.get("id").asLong());
+            }
+            return response.statusCode();
+        }
+
+        private HttpRequest get(String path) {
+            return HttpRequest.newBuilder(application.uri(path)).GET().build();
+        }
+
+        private int send(HttpRequest request) throws IOException, InterruptedException {
+            return application.httpClient().send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+
+        private synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+            }
+            ids[size++] = id;
+        }
+
+        // 0 once every student is gone, which answers 404
+        private synchronized long randomId() {
+            return size == 0 ? 0 : ids[ThreadLocalRandom.current().nextInt(size)];
+        }
+
+        private synchronized long removeRandomId() {
+            if (size == 0) {
+                return 0;
+            }
+            int index = ThreadLocalRandom.current().nextInt(size);
+            long id = ids[index];
+            ids[index] = ids[--size];
+            return id;
+        }
+
+        private static String studentJson(String kind, long n) {
+            return "{\"firstName\":\"Load" + n + "\",\"lastName\":\"" + kind
+                    + "\",\"email\":\"" + kind + n + "@load.example.com\"}";
+        }
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] nameAndWeight = part.trim().split(":");
+            weights.put(nameAndWeight[0], Integer.parseInt(nameAndWeight[1]));
+        }
+        return weights;
+    }
+
+    private static Map<String, Object> summary(Histogram latencies, Duration duration, long errors, long dropped) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", millis(latencies, 50));
+        percentiles.put("p90", millis(latencies, 90));
+        percentiles.put("p99", millis(latencies, 99));
+        percentiles.put("p99.9", millis(latencies, 99.9));
+        percentiles.put("max", round(latencies.getMaxValue() / 1e6));
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", latencies.getTotalCount());
+        summary.put("throughput", round(latencies.getTotalCount() / (double) Math.max(1, duration.toSeconds())));
+        summary.put("errors", errors);
+        summary.put("dropped", dropped);
+        summary.put("latencyMs", percentiles);
+        return summary;
+    }
+
+    private static double millis(Histogram latencies, double percentile) {
+        return round(latencies.getValueAtPercentile(percentile) / 1e6);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // same revision string as the scripts use, so reports can be matched to builds
+    private static String revision() {
+        try {
+            Process git = new ProcessBuilder("git", "describe", "--always", "--dirty").start();
+            String revision = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            return git.waitFor() == 0 && !revision.isEmpty() ? revision : "unknown";
+        } catch (IOException e) {
+            return "unknown";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "unknown";
+        }
+    }
+}
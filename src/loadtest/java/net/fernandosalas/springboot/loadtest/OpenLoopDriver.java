@@ -0,0 +1,158 @@
+package net.fernandosalas.springboot.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// requests started at a fixed rate whether or not earlier ones have answered, so a slow server shows up as latency
+// rather than as a lower request rate. Latency is taken from the time a request was due, not from when a worker
+// got to send it, so queueing in the driver does not hide stalls (coordinated omission).
+public class OpenLoopDriver {
+
+    private static final long HIGHEST_LATENCY = Duration.ofMinutes(1).toNanos();
+
+    public record Operation(String name, int weight, ClosedLoopDriver.Request request) {
+    }
+
+    // called by the reporting thread with the latencies recorded since the previous interval
+    @FunctionalInterface
+    public interface IntervalListener {
+        void onInterval(Duration elapsed, Map<String, Histogram> latencies);
+    }
+
+    public static final class OperationStats {
+        private final Recorder recorder = new Recorder(HIGHEST_LATENCY, 3);
+        private final Histogram latencies = new Histogram(HIGHEST_LATENCY, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder dropped = new LongAdder();
+
+        private void record(long latencyNanos, int status) {
+            recorder.recordValue(Math.min(latencyNanos, HIGHEST_LATENCY));
+            statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        }
+
+        // only the reporting thread adds to the totals
+        private Histogram drainInterval() {
+            Histogram interval = recorder.getIntervalHistogram();
+            latencies.add(interval);
+            return interval;
+        }
+
+        public Histogram latencies() {
+            return latencies;
+        }
+
+        public Map<Integer, Long> statuses() {
+            Map<Integer, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+
+        // status 0 stands for a request that failed without a response
+        public long errors() {
+            return statuses().entrySet().stream()
+                    .filter(entry -> entry.getKey() == 0 || entry.getKey() >= 500)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        // requests due while the worker backlog was full, never sent
+        public long dropped() {
+            return dropped.sum();
+        }
+    }
+
+    public static Map<String, OperationStats> run(double rate, Duration duration, Duration interval, int workers,
+                                                  List<Operation> operations, IntervalListener listener)
+            throws InterruptedException {
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        operations.forEach(operation -> stats.put(operation.name(), new OperationStats()));
+        int[] cumulativeWeights = new int[operations.size()];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            totalWeight += Math.max(0, operations.get(i).weight());
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        AtomicInteger threads = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers * 50), runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "load-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> report(stats, start, listener),
+                interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long deadline = start + duration.toNanos();
+        for (long due = start; due - deadline < 0; due += period) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Operation operation = pick(operations, cumulativeWeights, totalWeight);
+            OperationStats operationStats = stats.get(operation.name());
+            long scheduled = due;
+            try {
+                executor.execute(() -> {
+                    int status;
+                    try {
+                        status = operation.request().send();
+                    } catch (Exception e) {
+                        status = 0;
+                    }
+                    operationStats.record(System.nanoTime() - scheduled, status);
+                });
+            } catch (RejectedExecutionException e) {
+                operationStats.dropped.increment();
+            }
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        reporter.shutdown();
+        reporter.awaitTermination(1, TimeUnit.MINUTES);
+        // whatever was recorded after the last full interval
+        report(stats, start, listener);
+        return stats;
+    }
+
+    private static void report(Map<String, OperationStats> stats, long start, IntervalListener listener) {
+        Map<String, Histogram> latencies = new LinkedHashMap<>();
+        stats.forEach((name, operationStats) -> latencies.put(name, operationStats.drainInterval()));
+        listener.onInterval(Duration.ofNanos(System.nanoTime() - start), latencies);
+    }
+
+    private static Operation pick(List<Operation> operations, int[] cumulativeWeights, int totalWeight) {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+}
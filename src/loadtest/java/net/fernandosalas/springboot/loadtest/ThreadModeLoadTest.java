@@ -0,0 +1,48 @@
+package net.fernandosalas.springboot.loadtest;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// GET /api/students/{id} throughput and latency with platform request threads against virtual threads
+// args: [clients=1000] [seconds=30] [students=10000]
+public class ThreadModeLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Integer.parseInt(args[1]) : 30);
+        int students = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        List<String> modes = new ArrayList<>(List.of("platform"));
+        if (Runtime.version().feature() >= 21) {
+            modes.add("virtual");
+        } else {
+            System.out.println("Java " + Runtime.version().feature() + " runtime, skipping the virtual thread mode");
+        }
+
+        System.out.printf("%-10s %8s %12s %10s %10s %10s %8s%n",
+                "mode", "clients", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors");
+        for (String mode : modes) {
+            // the cache is off so every request reaches JDBC, which is where the threads block
+            String[] properties = mode.equals("virtual")
+                    ? new String[]{"spring.profiles.active=virtual-threads", "spring.cache.type=none"}
+                    : new String[]{"spring.cache.type=none"};
+            try (LoadTestApplication application = LoadTestApplication.start(properties)) {
+                long[] ids = application.seed(students);
+                ClosedLoopDriver.Request getById = () -> application.httpClient().send(
+                        HttpRequest.newBuilder(application.uri("/" + ids[ThreadLocalRandom.current().nextInt(ids.length)]))
+                                .GET()
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+                ClosedLoopDriver.run(clients, Duration.ofSeconds(10), getById);
+                ClosedLoopDriver.Result result = ClosedLoopDriver.run(clients, duration, getById);
+                System.out.printf("%-10s %8d %12.0f %10.2f %10.2f %10.2f %8d%n", mode, clients,
+                        result.throughput(), result.percentileMillis(50), result.percentileMillis(99),
+                        result.percentileMillis(99.9), result.errors());
+            }
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package net.fernandosalas.springboot;
 
+import net.fernandosalas.springboot.config.StudentRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(StudentRuntimeHints.class)
 public class SpringBootTestingMediumApplication {
 
 	public static void main(String[] args) {
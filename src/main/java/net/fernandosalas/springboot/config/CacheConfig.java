@@ -0,0 +1,12 @@
+package net.fernandosalas.springboot.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// caches are configured through spring.cache.*, spring.cache.type=none turns them off
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String STUDENTS = "students";
+    public static final String STUDENTS_BY_EMAIL = "studentsByEmail";
+}
@@ -0,0 +1,19 @@
+package net.fernandosalas.springboot.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+// student.cds.training-run=true exits as soon as the application is ready, so the JVM can dump the classes
+// loaded during startup into the AppCDS archive (see the cds profile in pom.xml)
+@Component
+@ConditionalOnProperty(prefix = "student.cds", name = "training-run", havingValue = "true")
+public class CdsTrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
@@ -0,0 +1,31 @@
+package net.fernandosalas.springboot.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// a JPA-backed bean, left out of the reactive application, which runs on R2DBC alone without a DataSource. Servlet
+// and non-web applications (tests, benchmarks) get it
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(ConditionalOnBlockingStack.NotReactiveCondition.class)
+public @interface ConditionalOnBlockingStack {
+
+    class NotReactiveCondition extends NoneNestedConditions {
+
+        NotReactiveCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        static class Reactive {
+        }
+    }
+}
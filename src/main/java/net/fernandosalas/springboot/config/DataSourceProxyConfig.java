@@ -0,0 +1,18 @@
+package net.fernandosalas.springboot.config;
+
+import net.fernandosalas.springboot.datasource.DataSourceProxyBeanPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "student.datasource.proxy", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DataSourceProxyConfig {
+
+    @Bean
+    public static DataSourceProxyBeanPostProcessor dataSourceProxyBeanPostProcessor(
+            ObjectProvider<StudentDataSourceProperties> properties) {
+        return new DataSourceProxyBeanPostProcessor(properties);
+    }
+}
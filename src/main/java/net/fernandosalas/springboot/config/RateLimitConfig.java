@@ -0,0 +1,27 @@
+package net.fernandosalas.springboot.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.fernandosalas.springboot.ratelimit.StudentRateLimitFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@ConditionalOnProperty(prefix = "student.rate-limit", name = "enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitConfig {
+
+    // ahead of the other /api/students filters, a rejected request should cost as little as possible
+    @Bean
+    public FilterRegistrationBean<StudentRateLimitFilter> studentRateLimitFilter(StudentRateLimitProperties properties,
+                                                                               MeterRegistry meterRegistry) {
+        FilterRegistrationBean<StudentRateLimitFilter> registration =
+                new FilterRegistrationBean<>(new StudentRateLimitFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/students", "/api/students/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
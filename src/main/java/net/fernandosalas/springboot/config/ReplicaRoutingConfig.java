@@ -0,0 +1,75 @@
+package net.fernandosalas.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.fernandosalas.springboot.datasource.ReadYourWritesFilter;
+import net.fernandosalas.springboot.datasource.ReplicaRoutingDataSource;
+import net.fernandosalas.springboot.datasource.ReplicaSet;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// replaces the auto-configured DataSource with one that routes read-only transactions to the replicas.
+// Needs spring.jpa.open-in-view=false: an open session holds its first connection for the whole request
+@Configuration
+@ConditionalOnProperty(prefix = "student.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaSet replicaSet(DataSourceProperties dataSourceProperties, StudentReplicaProperties properties,
+                                 Environment environment) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<StudentReplicaProperties.Node> nodes = properties.getNodes();
+        for (int i = 0; i < nodes.size(); i++) {
+            StudentReplicaProperties.Node node = nodes.get(i);
+            replicas.put("replica-" + i, DataSourceBuilder.create()
+                    .url(node.getUrl())
+                    .username(node.getUsername())
+                    .password(node.getPassword())
+                    .build());
+        }
+        // the primary keeps the pool settings of the auto-configured DataSource it replaces
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        return new ReplicaSet(primary, replicas, properties.getCheckInterval());
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaSet replicaSet) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaSet));
+    }
+
+    // replicas going down degrade reads to the primary, they do not take the application out of service
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaSet replicaSet) {
+        return () -> {
+            Map<String, Boolean> status = replicaSet.status();
+            Health.Builder health = status.isEmpty() || status.containsValue(true) ? Health.up() : Health.status("DEGRADED");
+            status.forEach((name, healthy) -> health.withDetail(name, healthy ? "UP" : "DOWN"));
+            return health.build();
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(StudentReplicaProperties properties) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(properties.getReadYourWrites()));
+        registration.addUrlPatterns("/api/students", "/api/students/*");
+        return registration;
+    }
+}
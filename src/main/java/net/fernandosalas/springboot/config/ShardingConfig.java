@@ -0,0 +1,93 @@
+package net.fernandosalas.springboot.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import net.fernandosalas.springboot.sharding.ShardAwareSequenceGenerator;
+import net.fernandosalas.springboot.sharding.ShardRoutingDataSource;
+import net.fernandosalas.springboot.sharding.ShardingAspect;
+import net.fernandosalas.springboot.sharding.StudentShards;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.tool.schema.Action;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+// partitions the students table over student.sharding.shards; replaces the auto-configured DataSource, so it
+// cannot be combined with the read replicas
+@Configuration
+@ConditionalOnProperty(prefix = "student.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    private static final Set<String> CREATING_DDL = Set.of("create", "create-drop");
+
+    // Hibernate only manages the schema of the connection it starts with, the first shard; when it creates
+    // that schema its script is captured here and replayed on the other shards
+    private final StringWriter createScript = new StringWriter();
+
+    @Bean
+    public StudentShards studentShards(StudentShardingProperties properties) {
+        List<DataSource> dataSources = properties.getShards().stream()
+                .map(shard -> (DataSource) DataSourceBuilder.create()
+                        .url(shard.getUrl())
+                        .username(shard.getUsername())
+                        .password(shard.getPassword())
+                        .build())
+                .toList();
+        return new StudentShards(dataSources);
+    }
+
+    @Bean
+    public DataSource dataSource(StudentShards studentShards) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(studentShards.dataSources()));
+    }
+
+    @Bean
+    public ShardingAspect shardingAspect(StudentShards studentShards, PlatformTransactionManager transactionManager) {
+        return new ShardingAspect(studentShards, transactionManager);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardingCustomizer(StudentShards studentShards) {
+        return properties -> {
+            properties.put(ShardAwareSequenceGenerator.SHARD_COUNT, studentShards.count());
+            // a session must not keep the connection of one shard for the calls that follow on another
+            properties.put(AvailableSettings.CONNECTION_HANDLING, "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+            Object ddlAuto = properties.get(AvailableSettings.HBM2DDL_AUTO);
+            if (CREATING_DDL.contains(String.valueOf(ddlAuto))) {
+                // with a scripts action set Hibernate no longer reads hbm2ddl.auto, the database action for the
+                // first shard has to be given in the same terms
+                properties.put(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, Action.interpretHbm2ddlSetting(ddlAuto));
+                properties.put(AvailableSettings.JAKARTA_HBM2DDL_SCRIPTS_ACTION, "create");
+                properties.put(AvailableSettings.JAKARTA_HBM2DDL_SCRIPTS_CREATE_TARGET, createScript);
+                properties.put(AvailableSettings.HBM2DDL_DELIMITER, ";");
+            }
+        };
+    }
+
+    @Bean
+    public SmartInitializingSingleton shardSchemaInitializer(EntityManagerFactory entityManagerFactory,
+                                                             StudentShards studentShards) {
+        return () -> {
+            String[] statements = Arrays.stream(createScript.toString().split(";\\s*"))
+                    .filter(statement -> !statement.isBlank())
+                    .toArray(String[]::new);
+            if (statements.length == 0) {
+                return;
+            }
+            for (DataSource shard : studentShards.dataSources().subList(1, studentShards.count())) {
+                new JdbcTemplate(shard).batchUpdate(statements);
+            }
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.batch")
+public class StudentBatchProperties {
+    // rows written per transaction; each chunk is flushed in JDBC batches of hibernate.jdbc.batch_size
+    private int chunkSize = 1000;
+}
@@ -0,0 +1,14 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.datasource")
+public class StudentDataSourceProperties {
+    private Duration slowQueryThreshold = Duration.ofMillis(500);
+}
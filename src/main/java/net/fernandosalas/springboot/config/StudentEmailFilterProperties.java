@@ -0,0 +1,15 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.email-filter")
+public class StudentEmailFilterProperties {
+    // sizes the Bloom filter, about 1.2 MB for a million emails at 1%; past it false positives grow,
+    // which costs an extra lookup per create but never rejects a free email
+    private int expectedEmails = 1000000;
+    private double falsePositiveRate = 0.01;
+}
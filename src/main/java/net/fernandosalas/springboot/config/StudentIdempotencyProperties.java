@@ -0,0 +1,17 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.idempotency")
+public class StudentIdempotencyProperties {
+    // how long a retry with the same Idempotency-Key gets the stored response instead of a new student
+    private Duration keyRetention = Duration.ofHours(24);
+    // keys beyond this are evicted least recently used first, a retry of an evicted key creates again
+    private int maxKeys = 100000;
+}
@@ -0,0 +1,46 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import net.fernandosalas.springboot.ratelimit.StudentEndpoint;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.rate-limit")
+public class StudentRateLimitProperties {
+    // when enabled, /api/students requests over a client's rate or an endpoint's concurrency limit get 429
+    private boolean enabled = false;
+    // the remote address is the client, unless the request comes from one of the trusted proxies: a gateway that
+    // sets this header from the authenticated caller. Sent by anyone else, the header is ignored
+    private String clientHeader = "X-Client-Id";
+    private Set<String> trustedProxies = new HashSet<>();
+    // buckets of clients idle this long are dropped, a returning client starts with a full bucket
+    private Duration idleClientExpiry = Duration.ofMinutes(10);
+    private int maxClients = 100000;
+    // limits of endpoints not listed under endpoints
+    private Limits defaults = new Limits();
+    private Map<StudentEndpoint, Limits> endpoints = new EnumMap<>(StudentEndpoint.class);
+
+    public Limits limitsFor(StudentEndpoint endpoint) {
+        return endpoints.getOrDefault(endpoint, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class Limits {
+        // per client and endpoint: sustained rate, and how many requests may arrive back to back
+        private double requestsPerSecond = 100;
+        private int burst = 200;
+        // per endpoint across clients: requests in flight start at the initial limit and adapt to latency
+        private int initialConcurrency = 20;
+        private int minConcurrency = 2;
+        private int maxConcurrency = 200;
+    }
+}
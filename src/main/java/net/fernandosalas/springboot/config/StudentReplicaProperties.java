@@ -0,0 +1,30 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.datasource.replicas")
+public class StudentReplicaProperties {
+    // when enabled, read-only transactions are spread over the nodes and everything else goes to spring.datasource
+    private boolean enabled = false;
+    private List<Node> nodes = new ArrayList<>();
+    // unreachable replicas leave the rotation until a check finds them valid again
+    private Duration checkInterval = Duration.ofSeconds(5);
+    // after a write, reads of the same client stay on the primary this long so they see it despite replica lag
+    private Duration readYourWrites = Duration.ofSeconds(5);
+
+    @Getter
+    @Setter
+    public static class Node {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,60 @@
+package net.fernandosalas.springboot.config;
+
+import net.fernandosalas.springboot.dto.StudentBatchDeleteResult;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.sharding.ShardAwareSequenceGenerator;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+// reflection and proxy metadata the native image cannot infer from the AOT-processed bean definitions
+public class StudentRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Jackson binding for the API payloads, createStudent returns ResponseEntity<?> so these are not inferred
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                Student.class, StudentView.class, StudentPage.class, StudentBatchResult.class, StudentBatchDeleteResult.class,
+                StudentWriteStatus.class);
+
+        // Hibernate field access and instantiation of the entity
+        hints.reflection().registerType(Student.class, MemberCategory.DECLARED_FIELDS,
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+
+        // Hibernate instantiates the id generator named in @GenericGenerator
+        hints.reflection().registerType(ShardAwareSequenceGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // @Query, @QueryHints and @Modifying are read from the repository methods at startup
+        hints.reflection().registerType(StudentRepository.class, MemberCategory.INTROSPECT_PUBLIC_METHODS,
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        // datasource-proxy wraps JDBC objects in JDK proxies
+        hints.proxies().registerJdkProxy(ProxyJdbcObject.class, Connection.class);
+        hints.proxies().registerJdkProxy(ProxyJdbcObject.class, Statement.class);
+        hints.proxies().registerJdkProxy(ProxyJdbcObject.class, PreparedStatement.class);
+        hints.proxies().registerJdkProxy(ProxyJdbcObject.class, CallableStatement.class);
+
+        // the reactive profile's schema script, named in spring.sql.init.schema-locations rather than a default name
+        hints.resources().registerPattern("schema-reactive.sql");
+
+        // VirtualThreadConfig resolves this method reflectively
+        hints.reflection().registerType(Executors.class, type -> type.withMethod("newVirtualThreadPerTaskExecutor",
+                List.<TypeReference>of(), ExecutableMode.INVOKE));
+    }
+}
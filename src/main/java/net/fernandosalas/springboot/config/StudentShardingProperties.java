@@ -0,0 +1,26 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.sharding")
+public class StudentShardingProperties {
+    // when enabled, students are partitioned over the shards by id and spring.datasource is not used
+    private boolean enabled = false;
+    // the order is part of the data layout: a student lives on shard (id mod number of shards)
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,22 @@
+package net.fernandosalas.springboot.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "student.write-behind")
+public class StudentWriteBehindProperties {
+    // when enabled, POST /api/students is acknowledged with 202 and written by a background flusher
+    private boolean enabled = false;
+    // queued students beyond this are rejected with 429
+    private int capacity = 10000;
+    // a flush happens once this many students are queued or flush-interval has passed since the first one
+    private int batchSize = 500;
+    private Duration flushInterval = Duration.ofMillis(50);
+    // how long the outcome of a write can be looked up by its tracking id
+    private Duration statusRetention = Duration.ofMinutes(10);
+}
@@ -0,0 +1,88 @@
+package net.fernandosalas.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// student.threads.virtual=true runs Tomcat request handling and async MVC work (exports) on virtual threads
+@Configuration
+@ConditionalOnProperty(prefix = "student.threads", name = "virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    // a connection pool as large as the carrier count, see application-virtual-threads.properties. Only the single
+    // auto-configured pool, on embedded H2: replica and shard pools are not resized, and a database in another
+    // process does not pin carriers. An explicit spring.datasource.hikari.maximum-pool-size is left alone
+    @Bean
+    @Conditional(SingleDataSourceCondition.class)
+    public static BeanPostProcessor carrierSizedConnectionPool(Environment environment) {
+        int carriers = carrierCount();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && EmbeddedDatabaseConnection.isEmbedded(dataSource.getDriverClassName(), dataSource.getJdbcUrl())
+                        && !environment.containsProperty("spring.datasource.hikari.maximum-pool-size")) {
+                    dataSource.setMaximumPoolSize(carriers);
+                    dataSource.setMinimumIdle(carriers);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // the default scheduler's parallelism, which the JDK takes from this property or the processor count
+    static int carrierCount() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    // neither read replicas nor shards, spring.datasource is the application's only database
+    static class SingleDataSourceCondition extends NoneNestedConditions {
+
+        SingleDataSourceCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(prefix = "student.datasource.replicas", name = "enabled", havingValue = "true")
+        static class Replicas {
+        }
+
+        @ConditionalOnProperty(prefix = "student.sharding", name = "enabled", havingValue = "true")
+        static class Sharding {
+        }
+    }
+
+    // looked up reflectively so the build stays on Java 17, the mode itself needs a Java 21 runtime
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("student.threads.virtual=true requires a Java 21 or newer runtime", e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package net.fernandosalas.springboot.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.config.StudentIdempotencyProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// responses of creates sent with an Idempotency-Key, so a client retrying after a timeout gets the student it
+// already created instead of a second one. Bounded and expiring, and local to this instance.
+@Component
+@ConditionalOnBlockingStack
+public class IdempotencyKeyStore {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    // the request is kept to tell a retry from a different request that reuses the key
+    private record Entry(Object request, CompletableFuture<ResponseEntity<?>> response) {
+    }
+
+    private final Cache<String, Entry> entries;
+
+    public IdempotencyKeyStore(StudentIdempotencyProperties properties) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxKeys()))
+                .expireAfterWrite(properties.getKeyRetention())
+                .build();
+    }
+
+    // runs the action once per key; only successful responses are kept, after a failure the key can be retried
+    public ResponseEntity<?> execute(String key, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry previous = entries.asMap().putIfAbsent(key, entry);
+        if (previous != null) {
+            return replay(previous, request);
+        }
+        try {
+            ResponseEntity<?> response = action.get();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                entries.asMap().remove(key, entry);
+            }
+            entry.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(key, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static ResponseEntity<?> replay(Entry previous, Object request) {
+        if (!previous.request().equals(request)) {
+            return ResponseEntity.unprocessableEntity().build();
+        }
+        CompletableFuture<ResponseEntity<?>> stored = previous.response();
+        ResponseEntity<?> response = stored.isDone() && !stored.isCompletedExceptionally() ? stored.join() : null;
+        if (response == null || !response.getStatusCode().is2xxSuccessful()) {
+            // the first request is still running, or has just failed and released the key
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(IDEMPOTENT_REPLAYED, "true")
+                .body(response.getBody());
+    }
+}
@@ -0,0 +1,87 @@
+package net.fernandosalas.springboot.controller;
+
+import lombok.AllArgsConstructor;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.ReactiveStudentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// WebFlux mirror of StudentController, active when the application runs as a reactive web application
+@RestController
+@RequestMapping("/api/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveStudentController {
+
+    @Autowired
+    private ReactiveStudentService reactiveStudentService;
+
+    @PostMapping
+    public Mono<ResponseEntity<Student>> createStudent(@RequestBody Student student) {
+        return reactiveStudentService.saveStudent(student)
+                .map(savedStudent -> ResponseEntity.status(HttpStatus.CREATED).body(savedStudent))
+                .onErrorReturn(DuplicateKeyException.class, ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<StudentPage> getStudents(@RequestParam(name = "size", defaultValue = "50") int size,
+                                         @RequestParam(name = "after", defaultValue = "0") long after) {
+        return reactiveStudentService.getStudents(after, size);
+    }
+
+    // streamed with backpressure, the database is read only as fast as the client consumes
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Student> exportStudents() {
+        return reactiveStudentService.exportStudents();
+    }
+
+    @GetMapping(params = "email")
+    public Mono<ResponseEntity<Student>> getStudentByEmail(@RequestParam("email") String email) {
+        return reactiveStudentService.getStudentByEmail(email)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<Student>> getStudentById(@PathVariable("id") long studentId) {
+        return reactiveStudentService.getStudentById(studentId)
+                .map(student -> ResponseEntity.ok()
+                        .eTag(Long.toString(student.getVersion()))
+                        .body(student))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<Student>> updateStudent(@PathVariable("id") long studentId,
+                                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                       @RequestBody Student updatedStudent) {
+        Long expectedVersion = StudentController.parseVersion(ifMatch);
+        return reactiveStudentService.updateStudent(studentId, updatedStudent, expectedVersion)
+                .map(student -> expectedVersion == null
+                        ? ResponseEntity.ok(student)
+                        : ResponseEntity.ok().eTag(Long.toString(student.getVersion())).body(student))
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorReturn(OptimisticLockingFailureException.class,
+                        ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build())
+                .onErrorReturn(DuplicateKeyException.class, ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<String>> deleteStudent(@PathVariable("id") long studentId) {
+        return reactiveStudentService.deleteStudent(studentId)
+                .map(deleted -> deleted
+                        ? new ResponseEntity<String>("Student Deleted Successfully", HttpStatus.OK)
+                        : ResponseEntity.notFound().<String>build());
+    }
+}
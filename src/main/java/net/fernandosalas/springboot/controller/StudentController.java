@@ -1,63 +1,269 @@
 package net.fernandosalas.springboot.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import lombok.AllArgsConstructor;
+import net.fernandosalas.springboot.dto.StudentBatchDeleteResult;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
 import net.fernandosalas.springboot.entity.Student;
 import net.fernandosalas.springboot.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/students")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @AllArgsConstructor
 public class StudentController {
 
+    static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+    private static final MediaType APPLICATION_CBOR_SEQ = MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE);
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+    // clients may keep a copy but revalidate it on every use, which the ETag makes cheap
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     @Autowired
     private StudentService studentService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdempotencyKeyStore idempotencyKeyStore;
+
+    // with an Idempotency-Key a retried create answers with the first response instead of creating again;
+    // the same key with a different body is rejected with 422
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public Student createStudent(@RequestBody Student student) {
-        return studentService.saveStudent(student);
+    public ResponseEntity<?> createStudent(@RequestHeader(name = IdempotencyKeyStore.IDEMPOTENCY_KEY, required = false)
+                                           String idempotencyKey,
+                                           @RequestBody Student student) {
+        if (idempotencyKey == null) {
+            return create(student);
+        }
+        List<String> request = Arrays.asList(student.getFirstName(), student.getLastName(), student.getEmail());
+        return idempotencyKeyStore.execute(idempotencyKey, request, () -> create(student));
+    }
+
+    @GetMapping("writes/{trackingId}")
+    public ResponseEntity<StudentWriteStatus> getWriteStatus(@PathVariable("trackingId") UUID trackingId) {
+        return studentService.getWriteStatus(trackingId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("batch")
+    @ResponseStatus(HttpStatus.OK)
+    public List<StudentBatchResult> createStudents(@RequestBody List<Student> students) {
+        return studentService.saveStudents(students);
     }
 
+    // a matching If-None-Match answers 304 before the page is serialized
     @GetMapping
+    public ResponseEntity<StudentPage> getStudents(@RequestParam(name = "size", defaultValue = "50") int size,
+                                                   @RequestParam(name = "after", defaultValue = "0") long after) {
+        StudentPage page = studentService.getStudents(after, size);
+        return ResponseEntity.ok()
+                .eTag(pageTag(page))
+                .cacheControl(REVALIDATE)
+                .body(page);
+    }
+
+    // newline-delimited JSON written row by row while the database cursor is read, or its binary counterpart, a
+    // CBOR sequence (RFC 8742) of self-delimiting items, for clients that name it in Accept. One mapping: with a
+    // second one Spring would pick CBOR for requests without an Accept header
+    @GetMapping(value = "export", produces = {MediaType.APPLICATION_NDJSON_VALUE, APPLICATION_CBOR_SEQ_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (prefersCborSequence(accept)) {
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = CBOR_FACTORY.createGenerator(outputStream);
+                // the JSON mapper serializes into any generator, so both exports carry the same fields
+                generator.setCodec(objectMapper);
+                export(generator, false);
+            };
+            return ResponseEntity.ok()
+                    .contentType(APPLICATION_CBOR_SEQ)
+                    .body(body);
+        }
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            export(generator, true);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @GetMapping(params = "email")
+    public ResponseEntity<StudentView> getStudentByEmail(@RequestParam("email") String email) {
+        return studentService.getStudentByEmail(email)
+                .map(StudentController::conditional)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = {"firstName", "lastName"})
+    @ResponseStatus(HttpStatus.OK)
+    public List<StudentView> getStudentsByName(@RequestParam("firstName") String firstName,
+                                               @RequestParam("lastName") String lastName,
+                                               @RequestParam(name = "size", defaultValue = "50") int size) {
+        return studentService.getStudentsByName(firstName, lastName, size);
+    }
+
+    // type-ahead search, e.g. ?q=fer sal matches Fernando Salas; results are ranked, size is capped at 50
+    @GetMapping("search")
     @ResponseStatus(HttpStatus.OK)
-    public List<Student> getAllStudents() {
-        return studentService.getAllStudents();
+    public StudentSearchPage searchStudents(@RequestParam("q") String query,
+                                            @RequestParam(name = "page", defaultValue = "0") int page,
+                                            @RequestParam(name = "size", defaultValue = "10") int size) {
+        return studentService.searchStudents(query, page, size);
     }
 
+    // the lookup is served by the students cache, so a revalidation that answers 304 usually skips the database too
     @GetMapping("{id}")
-    public ResponseEntity<Student> getStudentById(@PathVariable("id") long studentId) {
+    public ResponseEntity<StudentView> getStudentById(@PathVariable("id") long studentId) {
         return studentService.getStudentById(studentId)
-                .map(ResponseEntity::ok)
+                .map(StudentController::conditional)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    // If-Match carries the ETag of a previous GET and turns the update into a compare-and-set
     @PutMapping("{id}")
     public ResponseEntity<Student> updateStudent(@PathVariable("id") long studentId,
+                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                  @RequestBody Student updatedStudent) {
-        Optional<Student> optionalStudent = studentService.getStudentById(studentId);
-        if (optionalStudent.isPresent()) {
-            Student savedStudent = optionalStudent.get();
-            savedStudent.setFirstName(updatedStudent.getFirstName());
-            savedStudent.setLastName(updatedStudent.getLastName());
-            savedStudent.setEmail(updatedStudent.getEmail());
-            Student updated = studentService.updateStudent(savedStudent);
-            return ResponseEntity.ok(updated);
-        } else {
-            return ResponseEntity.notFound().build();
+        Long expectedVersion = parseVersion(ifMatch);
+        try {
+            return studentService.updateStudent(studentId, updatedStudent, expectedVersion)
+                    .map(student -> expectedVersion == null
+                            ? ResponseEntity.ok(student)
+                            : ResponseEntity.ok().eTag(Long.toString(student.getVersion())).body(student))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
     @DeleteMapping("{id}")
     public ResponseEntity<String> deleteStudent(@PathVariable("id") long studentId) {
-        studentService.deleteStudent(studentId);
+        if (!studentService.deleteStudent(studentId)) {
+            return ResponseEntity.notFound().build();
+        }
         return new ResponseEntity<>("Student Deleted Successfully", HttpStatus.OK);
     }
 
+    @PostMapping("batch/delete")
+    @ResponseStatus(HttpStatus.OK)
+    public StudentBatchDeleteResult deleteStudents(@RequestBody List<Long> ids) {
+        return studentService.deleteStudents(ids);
+    }
+
+    // a taken email answers 409, whether the filter check or the unique index found it
+    private ResponseEntity<?> create(Student student) {
+        try {
+            if (!studentService.isWriteBehind()) {
+                return ResponseEntity.status(HttpStatus.CREATED).body(studentService.saveStudent(student));
+            }
+            StudentWriteStatus status = studentService.submitStudent(student);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/students/writes/" + status.trackingId()))
+                    .body(status);
+        } catch (DuplicateKeyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+
+    // only an explicit application/cbor-seq ranked above NDJSON selects CBOR, wildcards keep the text format
+    private static boolean prefersCborSequence(String accept) {
+        double cbor = 0;
+        double ndjson = 0;
+        for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+            if (mediaType.equalsTypeAndSubtype(APPLICATION_CBOR_SEQ)) {
+                cbor = Math.max(cbor, mediaType.getQualityValue());
+            } else if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON)) {
+                ndjson = Math.max(ndjson, mediaType.getQualityValue());
+            }
+        }
+        return cbor > ndjson;
+    }
+
+    private void export(JsonGenerator generator, boolean newlines) throws IOException {
+        studentService.exportStudents(student -> {
+            try {
+                generator.writeObject(student);
+                if (newlines) {
+                    generator.writeRaw('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    // strong ETag from the version; Spring answers If-None-Match or If-Modified-Since with 304 and skips the body
+    private static ResponseEntity<StudentView> conditional(StudentView student) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(Long.toString(student.version()))
+                .cacheControl(REVALIDATE);
+        if (student.updatedAt() != null) {
+            response.lastModified(student.updatedAt());
+        }
+        return response.body(student);
+    }
+
+    // weak, the same tag covers the gzip and identity encodings; derived from ids and versions, so any
+    // update, insert or delete within the page changes it
+    static String pageTag(StudentPage page) {
+        long hash = FNV_OFFSET;
+        for (StudentView student : page.content()) {
+            hash = (hash ^ student.id()) * FNV_PRIME;
+            hash = (hash ^ student.version()) * FNV_PRIME;
+        }
+        hash = (hash ^ (page.nextCursor() == null ? 0 : page.nextCursor())) * FNV_PRIME;
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.equals("*")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(ifMatch.replace("\"", "").trim());
+        } catch (NumberFormatException e) {
+            // never matches, an existing student answers 412
+            return -1L;
+        }
+    }
+
 }
@@ -0,0 +1,32 @@
+package net.fernandosalas.springboot.datasource;
+
+import net.fernandosalas.springboot.config.StudentDataSourceProperties;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+// wraps every DataSource bean so statements can be recorded and slow ones logged
+public class DataSourceProxyBeanPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<StudentDataSourceProperties> properties;
+
+    public DataSourceProxyBeanPostProcessor(ObjectProvider<StudentDataSourceProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        StudentDataSourceProperties dataSourceProperties = properties.getIfAvailable(StudentDataSourceProperties::new);
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new QueryRecorder())
+                .listener(new SlowQueryLogListener(dataSourceProperties.getSlowQueryThreshold()))
+                .build();
+    }
+}
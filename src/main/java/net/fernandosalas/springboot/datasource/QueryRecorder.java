@@ -0,0 +1,49 @@
+package net.fernandosalas.springboot.datasource;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// records the statements executed on the current thread while record(...) runs
+public class QueryRecorder implements QueryExecutionListener {
+
+    private static final ThreadLocal<List<RecordedQuery>> RECORDING = new ThreadLocal<>();
+
+    public static List<RecordedQuery> record(Runnable action) {
+        List<RecordedQuery> previous = RECORDING.get();
+        List<RecordedQuery> queries = new ArrayList<>();
+        RECORDING.set(queries);
+        try {
+            action.run();
+        } finally {
+            RECORDING.set(previous);
+        }
+        return Collections.unmodifiableList(queries);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        List<RecordedQuery> queries = RECORDING.get();
+        if (queries == null) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            List<List<ParameterSetOperation>> parametersList = queryInfo.getParametersList();
+            queries.add(new RecordedQuery(queryInfo.getQuery(), bindCount(parametersList), execInfo.getElapsedTime(),
+                    execInfo.isSuccess(), parametersList.isEmpty() ? List.of() : List.copyOf(parametersList.get(0))));
+        }
+    }
+
+    static int bindCount(List<List<ParameterSetOperation>> parametersList) {
+        return parametersList.stream().mapToInt(List::size).sum();
+    }
+}
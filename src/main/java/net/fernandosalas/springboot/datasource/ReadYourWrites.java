@@ -0,0 +1,37 @@
+package net.fernandosalas.springboot.datasource;
+
+import java.util.function.Supplier;
+
+// pins the reads of the current thread to the primary, set per request by ReadYourWritesFilter
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+
+    // runs a read on the primary and leaves a pin set by the request in place
+    public static <T> T onPrimary(Supplier<T> read) {
+        if (isPinned()) {
+            return read.get();
+        }
+        pin();
+        try {
+            return read.get();
+        } finally {
+            clear();
+        }
+    }
+}
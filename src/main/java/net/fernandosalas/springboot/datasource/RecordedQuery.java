@@ -0,0 +1,14 @@
+package net.fernandosalas.springboot.datasource;
+
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.List;
+
+// one executed statement; parameters are the setter calls of the first (or only) parameter set
+public record RecordedQuery(String sql, int bindCount, long elapsedMillis, boolean success,
+                            List<ParameterSetOperation> parameters) {
+
+    public boolean isSelect() {
+        return sql.stripLeading().regionMatches(true, 0, "select", 0, 6);
+    }
+}
@@ -0,0 +1,53 @@
+package net.fernandosalas.springboot.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+// read-only transactions go to a healthy replica, everything else to the primary. Has to sit behind a
+// LazyConnectionDataSourceProxy so the connection is fetched after the transaction marked itself read-only
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaSet replicaSet;
+
+    public ReplicaRoutingDataSource(ReplicaSet replicaSet) {
+        this.replicaSet = replicaSet;
+        Map<Object, Object> targets = new HashMap<>(replicaSet.replicas());
+        targets.put(PRIMARY, replicaSet.primary());
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(replicaSet.primary());
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinned()) {
+            return PRIMARY;
+        }
+        return replicaSet.next().orElse(PRIMARY);
+    }
+
+    // a replica refusing connections leaves the rotation right away and the read falls back to the primary
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        DataSource target = getResolvedDataSources().get(key);
+        if (PRIMARY.equals(key)) {
+            return target.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            replicaSet.markDown((String) key, e);
+            return replicaSet.primary().getConnection();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package net.fernandosalas.springboot.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// the primary and the read replicas behind ReplicaRoutingDataSource; owns their pools and checks the replicas
+@Slf4j
+public class ReplicaSet implements SmartLifecycle, AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration checkInterval;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean running;
+    private ScheduledExecutorService checker;
+
+    public ReplicaSet(DataSource primary, Map<String, DataSource> replicas, Duration checkInterval) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.checkInterval = checkInterval;
+    }
+
+    public DataSource primary() {
+        return primary;
+    }
+
+    public Map<String, DataSource> replicas() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    // round-robin over the healthy replicas, empty when there is none
+    public Optional<String> next() {
+        int size = replicas.size();
+        if (size == 0) {
+            return Optional.empty();
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return Optional.of(replica.name);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public void markDown(String name, Exception cause) {
+        replicas.stream()
+                .filter(replica -> replica.name.equals(name))
+                .forEach(replica -> replica.update(false, cause));
+    }
+
+    public Map<String, Boolean> status() {
+        Map<String, Boolean> status = new LinkedHashMap<>();
+        replicas.forEach(replica -> status.put(replica.name, replica.healthy));
+        return status;
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                replica.update(connection.isValid(VALIDATION_TIMEOUT_SECONDS), null);
+            } catch (Exception e) {
+                // Hikari reports a pool that cannot start with a runtime exception rather than an SQLException
+                replica.update(false, e);
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        checkHealth();
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, checkInterval.toMillis());
+        checker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() throws Exception {
+        stop();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        if (primary instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void update(boolean healthy, Exception cause) {
+            if (this.healthy && !healthy) {
+                log.warn("Replica {} left the read rotation: {}", name, cause == null ? "invalid connection" : cause.getMessage());
+            } else if (!this.healthy && healthy) {
+                log.info("Replica {} is back in the read rotation", name);
+            }
+            this.healthy = healthy;
+        }
+    }
+}
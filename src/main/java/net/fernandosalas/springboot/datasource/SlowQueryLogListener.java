@@ -0,0 +1,48 @@
+package net.fernandosalas.springboot.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.time.Duration;
+import java.util.List;
+
+// logs statements slower than the threshold with their bind count and the service method that issued them
+@Slf4j
+public class SlowQueryLogListener implements QueryExecutionListener {
+
+    private static final String SERVICE_PACKAGE = "net.fernandosalas.springboot.service";
+
+    private final long thresholdMillis;
+
+    public SlowQueryLogListener(Duration threshold) {
+        this.thresholdMillis = threshold.toMillis();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis) {
+            return;
+        }
+        String caller = caller();
+        for (QueryInfo queryInfo : queryInfoList) {
+            log.warn("Slow query ({} ms, {} binds, caller {}): {}", execInfo.getElapsedTime(),
+                    QueryRecorder.bindCount(queryInfo.getParametersList()), caller, queryInfo.getQuery());
+        }
+    }
+
+    // only walked for slow statements, proxy classes generated for the service are skipped
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICE_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("unknown"));
+    }
+}
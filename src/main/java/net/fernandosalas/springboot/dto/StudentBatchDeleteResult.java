@@ -0,0 +1,5 @@
+package net.fernandosalas.springboot.dto;
+
+// requested counts distinct ids, the difference to deleted is the number of ids that did not exist
+public record StudentBatchDeleteResult(int requested, int deleted) {
+}
@@ -0,0 +1,21 @@
+package net.fernandosalas.springboot.dto;
+
+// outcome of one item of a bulk write, index is the position of the item in the request
+public record StudentBatchResult(int index, Long id, Status status, String error) {
+
+    public enum Status {
+        CREATED, UPDATED, FAILED
+    }
+
+    public static StudentBatchResult created(int index, long id) {
+        return new StudentBatchResult(index, id, Status.CREATED, null);
+    }
+
+    public static StudentBatchResult updated(int index, long id) {
+        return new StudentBatchResult(index, id, Status.UPDATED, null);
+    }
+
+    public static StudentBatchResult failed(int index, Long id, String error) {
+        return new StudentBatchResult(index, id, Status.FAILED, error);
+    }
+}
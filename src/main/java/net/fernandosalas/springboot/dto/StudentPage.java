@@ -0,0 +1,8 @@
+package net.fernandosalas.springboot.dto;
+
+import java.util.List;
+
+// one keyset page of students; nextCursor is the id to pass as "after" for the next page, null on the last page
+public record StudentPage(List<StudentView> content, Long nextCursor) {
+    public static final int MAX_SIZE = 1000;
+}
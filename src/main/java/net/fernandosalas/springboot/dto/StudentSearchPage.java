@@ -0,0 +1,7 @@
+package net.fernandosalas.springboot.dto;
+
+import java.util.List;
+
+// one page of ranked search results, best match first
+public record StudentSearchPage(List<StudentView> content, int page, boolean hasNext) {
+}
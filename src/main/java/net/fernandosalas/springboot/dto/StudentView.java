@@ -0,0 +1,17 @@
+package net.fernandosalas.springboot.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import net.fernandosalas.springboot.entity.Student;
+
+import java.time.Instant;
+
+// read model of a student, selected straight into the record so no managed entity or snapshot is created;
+// version and updatedAt are only exposed as the ETag and Last-Modified headers
+public record StudentView(long id, String firstName, String lastName, String email, @JsonIgnore long version,
+                          @JsonIgnore Instant updatedAt) {
+
+    public static StudentView of(Student student) {
+        return new StudentView(student.getId(), student.getFirstName(), student.getLastName(), student.getEmail(),
+                student.getVersion(), student.getUpdatedAt());
+    }
+}
@@ -0,0 +1,23 @@
+package net.fernandosalas.springboot.dto;
+
+import java.util.UUID;
+
+// state of a queued student write, looked up by the tracking id returned from the 202 response
+public record StudentWriteStatus(UUID trackingId, Status status, Long id, String error) {
+
+    public enum Status {
+        PENDING, WRITTEN, FAILED
+    }
+
+    public static StudentWriteStatus pending(UUID trackingId) {
+        return new StudentWriteStatus(trackingId, Status.PENDING, null, null);
+    }
+
+    public static StudentWriteStatus written(UUID trackingId, long id) {
+        return new StudentWriteStatus(trackingId, Status.WRITTEN, id, null);
+    }
+
+    public static StudentWriteStatus failed(UUID trackingId, String error) {
+        return new StudentWriteStatus(trackingId, Status.FAILED, null, error);
+    }
+}
@@ -1,6 +1,14 @@
 package net.fernandosalas.springboot.entity;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import net.fernandosalas.springboot.sharding.ShardAwareSequenceGenerator;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+import java.time.Instant;
 
 @Entity
 @Setter
@@ -8,10 +16,22 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "students")
+@Table(name = "students", indexes = {
+        @Index(name = Student.EMAIL_CONSTRAINT, columnList = "email", unique = true),
+        @Index(name = "idx_students_name", columnList = "first_name, last_name")
+})
 public class Student {
+    // unique index on email, also how a duplicate is recognized in the constraint violation
+    public static final String EMAIL_CONSTRAINT = "uk_students_email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled sequence so inserts can be sent as JDBC batches, which IDENTITY columns rule out;
+    // with sharding enabled the id also encodes the shard the student lives on
+    @GeneratedValue(generator = "students_seq")
+    @GenericGenerator(name = "students_seq", type = ShardAwareSequenceGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "students_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     private long id;
 
     @Column(name = "first_name", nullable = false)
@@ -22,4 +42,15 @@ public class Student {
 
     @Column(nullable = false)
     private String email;
+
+    // optimistic lock counter, exposed to clients as the ETag rather than in the body
+    @Version
+    @JsonIgnore
+    private long version;
+
+    // sent as Last-Modified; set on insert and on every entity update, the bulk update query sets it itself
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    @JsonIgnore
+    private Instant updatedAt;
 }
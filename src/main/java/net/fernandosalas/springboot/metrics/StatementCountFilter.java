@@ -0,0 +1,35 @@
+package net.fernandosalas.springboot.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// records how many SQL statements each request to /api/students issued on the request thread
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    private final DistributionSummary statements;
+
+    public StatementCountFilter(MeterRegistry meterRegistry) {
+        this.statements = DistributionSummary.builder("student.http.statements")
+                .description("Hibernate statements per request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StatementCountingInspector.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements.record(StatementCountingInspector.reset());
+        }
+    }
+}
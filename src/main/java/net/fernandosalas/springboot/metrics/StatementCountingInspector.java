@@ -0,0 +1,23 @@
+package net.fernandosalas.springboot.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// counts the SQL statements Hibernate prepares on the current thread
+public class StatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    // returns the statements counted since the previous reset on this thread
+    public static int reset() {
+        int[] count = COUNT.get();
+        int statements = count[0];
+        count[0] = 0;
+        return statements;
+    }
+}
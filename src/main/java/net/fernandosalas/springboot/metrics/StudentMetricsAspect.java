@@ -0,0 +1,91 @@
+package net.fernandosalas.springboot.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// times every StudentService and StudentRepository call; meters are built once per method so a call
+// costs two clock reads and a map lookup
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "student.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StudentMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public StudentMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("this(net.fernandosalas.springboot.service.StudentService)"
+            + " || this(net.fernandosalas.springboot.repository.StudentRepository)")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMeters methodMeters = meters.computeIfAbsent(method,
+                key -> register(key, joinPoint.getThis() instanceof StudentRepository ? "repository" : "service"));
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodMeters.recordRows(result);
+            return result;
+        } catch (Throwable t) {
+            methodMeters.errors.increment();
+            throw t;
+        } finally {
+            methodMeters.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private MethodMeters register(Method method, String layer) {
+        Tags tags = Tags.of("layer", layer, "method", method.getName());
+        Timer timer = Timer.builder("student.calls")
+                .description("StudentService and StudentRepository call latency")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Counter errors = Counter.builder("student.calls.errors")
+                .description("StudentService and StudentRepository calls that threw")
+                .tags(tags)
+                .register(meterRegistry);
+        Class<?> returnType = method.getReturnType();
+        DistributionSummary rows = Collection.class.isAssignableFrom(returnType) || returnType == StudentPage.class
+                ? DistributionSummary.builder("student.rows.returned")
+                        .description("Rows returned by list and name queries")
+                        .tags(tags)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                : null;
+        return new MethodMeters(timer, errors, rows);
+    }
+
+    private record MethodMeters(Timer timer, Counter errors, DistributionSummary rows) {
+
+        void recordRows(Object result) {
+            if (rows == null) {
+                return;
+            }
+            if (result instanceof Collection<?> collection) {
+                rows.record(collection.size());
+            } else if (result instanceof StudentPage page) {
+                rows.record(page.content().size());
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package net.fernandosalas.springboot.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// in-flight limit that follows latency, after the gradient algorithm of Netflix concurrency-limits: the average
+// latency of each window is compared with a long-term average, the limit shrinks once requests start to queue
+// (latency above twice the long-term average) and grows by about its square root while they do not.
+// Acquire and release are lock-free; the limit is recomputed once per window by whichever release closes it.
+public class AdaptiveConcurrencyLimit {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double TOLERANCE = 2.0;
+    private static final double SMOOTHING = 0.2;
+    // roughly a one minute average at one window per second
+    private static final double LONG_RTT_WEIGHT = 1.0 / 60;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowStart;
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long nowNanos) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.estimatedLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.windowStart = new AtomicLong(nowNanos);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        long start = windowStart.get();
+        if (nowNanos - start >= WINDOW_NANOS && windowSamples.sum() >= MIN_WINDOW_SAMPLES
+                && windowStart.compareAndSet(start, nowNanos)) {
+            long samples = windowSamples.sumThenReset();
+            long rtt = windowRttNanos.sumThenReset();
+            int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+            update((double) rtt / Math.max(1, samples), maxInFlight);
+        }
+    }
+
+    // releases without a latency sample, for requests whose duration says nothing about load such as exports
+    public void ignore() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    // uncontended, the window compare-and-set lets one thread in at a time
+    private synchronized void update(double shortRttNanos, int maxInFlight) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * LONG_RTT_WEIGHT;
+        }
+        // after an overload the long-term average would stay high for a minute and hide the next one
+        if (longRttNanos / shortRttNanos > TOLERANCE) {
+            longRttNanos *= 0.95;
+        }
+        // far below the limit the latency says nothing about how much more the endpoint could take
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.min(maxLimit, Math.max(minLimit,
+                estimatedLimit * (1 - SMOOTHING) + next * SMOOTHING));
+        limit = (int) estimatedLimit;
+    }
+}
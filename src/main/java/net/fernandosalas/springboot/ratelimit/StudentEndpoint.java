@@ -0,0 +1,30 @@
+package net.fernandosalas.springboot.ratelimit;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+// groups of /api/students requests that share a concurrency limit and get their own bucket per client
+public enum StudentEndpoint {
+    // a single student by id or email, or the status of a queued write
+    LOOKUP,
+    // pages, name queries and the export; each can read up to a thousand rows or the whole table
+    LIST,
+    SEARCH,
+    WRITE;
+
+    private static final String BASE_PATH = "/api/students";
+
+    public static StudentEndpoint of(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals(BASE_PATH + "/search")) {
+            return SEARCH;
+        }
+        if (path.startsWith(BASE_PATH + "/") && !path.equals(BASE_PATH + "/export")) {
+            return LOOKUP;
+        }
+        return request.getParameter("email") != null ? LOOKUP : LIST;
+    }
+}
@@ -0,0 +1,142 @@
+package net.fernandosalas.springboot.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.fernandosalas.springboot.config.StudentRateLimitProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// token bucket per client and endpoint, then an adaptive concurrency limit per endpoint; either one answers
+// 429 with Retry-After before the request reaches the controller or takes a database connection
+public class StudentRateLimitFilter extends OncePerRequestFilter {
+
+    private static final long CONCURRENCY_RETRY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final StudentRateLimitProperties properties;
+    private final Cache<String, TokenBucket> buckets;
+    private final Map<StudentEndpoint, AdaptiveConcurrencyLimit> limits = new EnumMap<>(StudentEndpoint.class);
+    private final Map<StudentEndpoint, Counter> rateRejections = new EnumMap<>(StudentEndpoint.class);
+    private final Map<StudentEndpoint, Counter> concurrencyRejections = new EnumMap<>(StudentEndpoint.class);
+
+    public StudentRateLimitFilter(StudentRateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, properties.getMaxClients()))
+                .expireAfterAccess(properties.getIdleClientExpiry())
+                .build();
+        long now = System.nanoTime();
+        for (StudentEndpoint endpoint : StudentEndpoint.values()) {
+            StudentRateLimitProperties.Limits endpointLimits = properties.limitsFor(endpoint);
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(endpointLimits.getInitialConcurrency(),
+                    endpointLimits.getMinConcurrency(), endpointLimits.getMaxConcurrency(), now);
+            String tag = endpoint.name().toLowerCase(Locale.ROOT);
+            limits.put(endpoint, limit);
+            rateRejections.put(endpoint, rejections(meterRegistry, tag, "rate"));
+            concurrencyRejections.put(endpoint, rejections(meterRegistry, tag, "concurrency"));
+            Gauge.builder("student.http.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Requests allowed in flight")
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+            Gauge.builder("student.http.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tag("endpoint", tag)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        StudentEndpoint endpoint = StudentEndpoint.of(request);
+        long wait = bucket(clientOf(request), endpoint).tryAcquire(System.nanoTime());
+        if (wait > 0) {
+            rateRejections.get(endpoint).increment();
+            reject(response, wait);
+            return;
+        }
+        AdaptiveConcurrencyLimit limit = limits.get(endpoint);
+        if (!limit.tryAcquire()) {
+            concurrencyRejections.get(endpoint).increment();
+            reject(response, CONCURRENCY_RETRY_NANOS);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // streamed exports keep their slot until the response is complete
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        limit.ignore();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                long end = System.nanoTime();
+                limit.release(end - start, end);
+            }
+        }
+    }
+
+    private TokenBucket bucket(String client, StudentEndpoint endpoint) {
+        return buckets.get(client + ' ' + endpoint.name(), key -> {
+            StudentRateLimitProperties.Limits endpointLimits = properties.limitsFor(endpoint);
+            return new TokenBucket(endpointLimits.getRequestsPerSecond(), endpointLimits.getBurst(), System.nanoTime());
+        });
+    }
+
+    // a header anyone can send would hand out a fresh bucket per value, only a trusted gateway gets to name the client
+    private String clientOf(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (!properties.getTrustedProxies().contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String client = request.getHeader(properties.getClientHeader());
+        return client == null || client.isBlank() ? remoteAddr : client;
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) {
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String endpoint, String reason) {
+        return Counter.builder("student.http.rejected")
+                .description("Requests answered 429 by the rate or concurrency limit")
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,36 @@
+package net.fernandosalas.springboot.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// token bucket kept as a single theoretical arrival time (GCRA): each request pushes it one emission interval
+// further, and a request is refused while it would end up more than burst intervals ahead of now.
+// One compare-and-set per request, no lock and no refill thread.
+public class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long capacityNanos;
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(double requestsPerSecond, int burst, long nowNanos) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / requestsPerSecond));
+        this.capacityNanos = emissionIntervalNanos * Math.max(1, burst);
+        // starts full
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    // 0 when a token was taken, otherwise the nanoseconds until the next one is available
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            // compared by difference, nanoTime values may wrap
+            long next = (current - nowNanos > 0 ? current : nowNanos) + emissionIntervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > capacityNanos) {
+                return ahead - capacityNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package net.fernandosalas.springboot.repository;
+
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import net.fernandosalas.springboot.entity.Student;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// R2DBC counterpart of StudentRepository over the same students table
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStudentRepository {
+
+    private static final String COLUMNS = "id, first_name, last_name, email, version";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveStudentRepository(ConnectionFactory connectionFactory) {
+        this.databaseClient = DatabaseClient.create(connectionFactory);
+    }
+
+    public Mono<Student> findById(long id) {
+        return databaseClient.sql("select " + COLUMNS + " from students where id = :id")
+                .bind("id", id)
+                .map(ReactiveStudentRepository::toStudent)
+                .one();
+    }
+
+    public Mono<Student> findByEmail(String email) {
+        return databaseClient.sql("select " + COLUMNS + " from students where email = :email")
+                .bind("email", email)
+                .map(ReactiveStudentRepository::toStudent)
+                .one();
+    }
+
+    public Flux<Student> findByIdGreaterThan(long id, int limit) {
+        return databaseClient.sql("select " + COLUMNS + " from students where id > :id order by id limit :limit")
+                .bind("id", id)
+                .bind("limit", limit)
+                .map(ReactiveStudentRepository::toStudent)
+                .all();
+    }
+
+    // rows are emitted as the subscriber requests them
+    public Flux<Student> findAll() {
+        return databaseClient.sql("select " + COLUMNS + " from students order by id")
+                .map(ReactiveStudentRepository::toStudent)
+                .all();
+    }
+
+    // the raw sequence value is used as the id: Hibernate's pooled optimizer only hands out ids
+    // below the sequence values it fetched itself, so both stacks can insert without collisions
+    public Mono<Student> insert(Student student) {
+        return databaseClient.sql("select next value for students_seq")
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .flatMap(id -> databaseClient.sql("insert into students (" + COLUMNS + ", updated_at)"
+                                + " values (:id, :firstName, :lastName, :email, 0, current_timestamp)")
+                        .bind("id", id)
+                        .bind("firstName", student.getFirstName())
+                        .bind("lastName", student.getLastName())
+                        .bind("email", student.getEmail())
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(Student.builder()
+                                .id(id)
+                                .firstName(student.getFirstName())
+                                .lastName(student.getLastName())
+                                .email(student.getEmail())
+                                .build()));
+    }
+
+    // a null version skips the optimistic check
+    public Mono<Long> update(long id, Student student, Long version) {
+        String sql = "update students set first_name = :firstName, last_name = :lastName, email = :email,"
+                + " version = version + 1, updated_at = current_timestamp where id = :id";
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(version == null ? sql : sql + " and version = :version")
+                .bind("id", id)
+                .bind("firstName", student.getFirstName())
+                .bind("lastName", student.getLastName())
+                .bind("email", student.getEmail());
+        if (version != null) {
+            spec = spec.bind("version", version);
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Boolean> existsById(long id) {
+        return databaseClient.sql("select 1 from students where id = :id")
+                .bind("id", id)
+                .map(row -> 1)
+                .first()
+                .hasElement();
+    }
+
+    public Mono<Long> deleteById(long id) {
+        return databaseClient.sql("delete from students where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static Student toStudent(Row row, RowMetadata metadata) {
+        return Student.builder()
+                .id(row.get("id", Long.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .email(row.get("email", String.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
@@ -1,26 +1,142 @@
 package net.fernandosalas.springboot.repository;
 
+import jakarta.persistence.QueryHint;
+import net.fernandosalas.springboot.dto.StudentView;
 import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.sharding.FanOut;
+import net.fernandosalas.springboot.sharding.ShardKey;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
+    // reads select into StudentView: no managed entities, no dirty-checking snapshots, nothing to flush
+    String SELECT_VIEW = "select new net.fernandosalas.springboot.dto.StudentView("
+            + "s.id, s.firstName, s.lastName, s.email, s.version, s.updatedAt) from Student s";
+
+    // the CRUD methods in use, redeclared to say how they are routed when the table is sharded
+    @Override
+    <S extends Student> S save(@ShardKey S student);
+
+    @Override
+    <S extends Student> S saveAndFlush(@ShardKey S student);
+
+    @Override
+    <S extends Student> List<S> saveAll(@ShardKey Iterable<S> students);
+
+    @Override
+    Optional<Student> findById(@ShardKey Long id);
+
+    @Override
+    boolean existsById(@ShardKey Long id);
+
+    @Override
+    List<Student> findAllById(@ShardKey Iterable<Long> ids);
+
+    @Override
+    void deleteById(@ShardKey Long id);
+
+    @Override
+    void delete(@ShardKey Student student);
+
+    @Override
+    @FanOut
+    List<Student> findAll();
+
+    @Override
+    @FanOut
+    long count();
+
+    @Override
+    @FanOut
+    void deleteAllInBatch();
+
+    @FanOut
     Optional<Student> findByEmail(String email);
 
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.id = :id")
+    Optional<StudentView> findViewById(@ShardKey long id);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.email = :email")
+    @FanOut
+    Optional<StudentView> findViewByEmail(String email);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.email in :emails")
+    @FanOut
+    List<StudentView> findViewsByEmailIn(Collection<String> emails);
+
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " order by s.id")
+    @FanOut
+    List<StudentView> findAllViews();
+
+    // keyset page: range scan on the primary key, no offset and no count query
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.id > :id order by s.id")
+    @FanOut
+    List<StudentView> findViewsAfter(long id, Pageable pageable);
+
+    // cursor over the whole table for exports; must be consumed inside a transaction and closed
+    @Query(SELECT_VIEW + " order by s.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @FanOut
+    Stream<StudentView> streamAll();
+
+    // single-statement update, a null version skips the optimistic check
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Student s set s.firstName = :firstName, s.lastName = :lastName, s.email = :email,"
+            + " s.version = s.version + 1, s.updatedAt = :updatedAt"
+            + " where s.id = :id and (:version is null or s.version = :version)")
+    int updateStudent(@ShardKey long id, String firstName, String lastName, String email, Long version, Instant updatedAt);
+
+    // direct deletes, unlike deleteById these do not load the entity first
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Student s where s.id = :id")
+    int deleteStudentById(@ShardKey long id);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Student s where s.id in :ids")
+    int deleteStudentsByIds(@ShardKey Collection<Long> ids);
+
     // define custom query using JPQL with index params
-    @Query("select s from Student s where s.firstName =?1 and s.lastName = ?2")
-    Student findByJPQLIndexParams(String firstName, String lastName);
+    // name lookups use idx_students_name and are bounded by the pageable, names are not unique
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.firstName =?1 and s.lastName = ?2 order by s.id")
+    @FanOut
+    List<StudentView> findByJPQLIndexParams(String firstName, String lastName, Pageable pageable);
 
-    @Query("select s from Student s where s.firstName =:firstName and s.lastName =:lastName")
-    Student findByJPQLNamedParams(String firstName, String lastName);
+    @Transactional(readOnly = true)
+    @Query(SELECT_VIEW + " where s.firstName =:firstName and s.lastName =:lastName order by s.id")
+    @FanOut
+    List<StudentView> findByJPQLNamedParams(String firstName, String lastName, Pageable pageable);
 
-    @Query(value = "select * from students s where s.first_name = ?1 and s.last_name = ?2"
+    // native SQL has no constructor expressions, the entities are loaded read-only instead (no snapshots)
+    @Transactional(readOnly = true)
+    @Query(value = "select * from students s where s.first_name = ?1 and s.last_name = ?2 order by s.id"
     ,nativeQuery = true)
-    Student findByNativeIndexParams(String firstName, String lastName);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @FanOut
+    List<Student> findByNativeIndexParams(String firstName, String lastName, Pageable pageable);
 
-    @Query(value = "select * from students s where s.first_name =:firstName and s.last_name =:lastName"
+    @Transactional(readOnly = true)
+    @Query(value = "select * from students s where s.first_name =:firstName and s.last_name =:lastName order by s.id"
             ,nativeQuery = true)
-    Student findByNativeNamedParams(String firstName, String lastName);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @FanOut
+    List<Student> findByNativeNamedParams(String firstName, String lastName, Pageable pageable);
 }
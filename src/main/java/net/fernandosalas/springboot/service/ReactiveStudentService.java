@@ -0,0 +1,22 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.entity.Student;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveStudentService {
+    Mono<Student> saveStudent(Student student);
+
+    Mono<StudentPage> getStudents(long after, int size);
+
+    Flux<Student> exportStudents();
+
+    Mono<Student> getStudentById(long id);
+
+    Mono<Student> getStudentByEmail(String email);
+
+    Mono<Student> updateStudent(long id, Student student, Long expectedVersion);
+
+    Mono<Boolean> deleteStudent(long id);
+}
@@ -1,18 +1,48 @@
 package net.fernandosalas.springboot.service;
 
+import net.fernandosalas.springboot.dto.StudentBatchDeleteResult;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
 import net.fernandosalas.springboot.entity.Student;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
 public interface StudentService {
     Student saveStudent(Student student);
 
-    List<Student> getAllStudents();
+    List<StudentBatchResult> saveStudents(List<Student> students);
 
-    Optional<Student> getStudentById(long id);
+    boolean isWriteBehind();
 
-    Student updateStudent(Student student);
+    // queues the student for the background flusher, RejectedExecutionException when the queue is full
+    StudentWriteStatus submitStudent(Student student);
 
-    void deleteStudent(long id);
+    Optional<StudentWriteStatus> getWriteStatus(UUID trackingId);
+
+    List<StudentView> getAllStudents();
+
+    StudentPage getStudents(long after, int size);
+
+    void exportStudents(Consumer<StudentView> consumer);
+
+    Optional<StudentView> getStudentById(long id);
+
+    Optional<StudentView> getStudentByEmail(String email);
+
+    List<StudentView> getStudentsByName(String firstName, String lastName, int limit);
+
+    // ranked prefix and typo-tolerant match of every query token against first name, last name and email
+    StudentSearchPage searchStudents(String query, int page, int size);
+
+    Optional<Student> updateStudent(long id, Student student, Long expectedVersion);
+
+    boolean deleteStudent(long id);
+
+    StudentBatchDeleteResult deleteStudents(List<Long> ids);
 }
@@ -0,0 +1,106 @@
+package net.fernandosalas.springboot.service.implementation;
+
+import lombok.AllArgsConstructor;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.ReactiveStudentRepository;
+import net.fernandosalas.springboot.service.ReactiveStudentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@AllArgsConstructor
+public class ReactiveStudentServiceImplementation implements ReactiveStudentService {
+
+    @Autowired
+    private ReactiveStudentRepository reactiveStudentRepository;
+
+    @Override
+    public Mono<Student> saveStudent(Student student) {
+        return reactiveStudentRepository.insert(student)
+                .onErrorMap(DataIntegrityViolationException.class, e -> emailConflict(student.getEmail(), e));
+    }
+
+    @Override
+    public Mono<StudentPage> getStudents(long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, StudentPage.MAX_SIZE));
+        // fetch one extra row to know whether another page follows
+        return reactiveStudentRepository.findByIdGreaterThan(after, pageSize + 1)
+                .map(StudentView::of)
+                .collectList()
+                .map(students -> {
+                    if (students.size() <= pageSize) {
+                        return new StudentPage(students, null);
+                    }
+                    List<StudentView> content = List.copyOf(students.subList(0, pageSize));
+                    return new StudentPage(content, content.get(pageSize - 1).id());
+                });
+    }
+
+    @Override
+    public Flux<Student> exportStudents() {
+        return reactiveStudentRepository.findAll();
+    }
+
+    @Override
+    public Mono<Student> getStudentById(long id) {
+        return reactiveStudentRepository.findById(id);
+    }
+
+    @Override
+    public Mono<Student> getStudentByEmail(String email) {
+        return reactiveStudentRepository.findByEmail(email);
+    }
+
+    @Override
+    public Mono<Student> updateStudent(long id, Student student, Long expectedVersion) {
+        return reactiveStudentRepository.update(id, student, expectedVersion)
+                .onErrorMap(DataIntegrityViolationException.class, e -> emailConflict(student.getEmail(), e))
+                .flatMap(updated -> {
+                    if (updated > 0) {
+                        return Mono.just(Student.builder()
+                                .id(id)
+                                .firstName(student.getFirstName())
+                                .lastName(student.getLastName())
+                                .email(student.getEmail())
+                                .version(expectedVersion == null ? 0 : expectedVersion + 1)
+                                .build());
+                    }
+                    if (expectedVersion == null) {
+                        return Mono.<Student>empty();
+                    }
+                    // only a failed conditional update costs the extra lookup to tell 404 from a stale version
+                    return reactiveStudentRepository.existsById(id)
+                            .flatMap(exists -> exists
+                                    ? Mono.error(new OptimisticLockingFailureException(
+                                            "Student " + id + " was modified concurrently"))
+                                    : Mono.<Student>empty());
+                });
+    }
+
+    @Override
+    public Mono<Boolean> deleteStudent(long id) {
+        return reactiveStudentRepository.deleteById(id).map(deleted -> deleted > 0);
+    }
+
+    // the unique email index is the only check here, as on the blocking stack's updates
+    private static Throwable emailConflict(String email, DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        if (message != null && message.toLowerCase(Locale.ROOT).contains(Student.EMAIL_CONSTRAINT)) {
+            return new DuplicateKeyException("Email " + email + " is already taken", e);
+        }
+        return e;
+    }
+}
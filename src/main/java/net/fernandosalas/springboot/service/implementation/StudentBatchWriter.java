@@ -0,0 +1,71 @@
+package net.fernandosalas.springboot.service.implementation;
+
+import jakarta.persistence.EntityManager;
+import lombok.AllArgsConstructor;
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// writes one chunk of a bulk request in its own transaction
+@Component
+@ConditionalOnBlockingStack
+@AllArgsConstructor
+public class StudentBatchWriter {
+
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Transactional
+    public List<StudentBatchResult> writeChunk(int offset, List<Student> chunk) {
+        // a single select for the rows being updated, inserts and updates are then batched on flush
+        List<Long> ids = chunk.stream()
+                .map(Student::getId)
+                .filter(id -> id != 0)
+                .toList();
+        Map<Long, Student> existing = studentRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+
+        List<StudentBatchResult> results = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Student student = chunk.get(i);
+            int index = offset + i;
+            if (student.getFirstName() == null || student.getLastName() == null || student.getEmail() == null) {
+                results.add(StudentBatchResult.failed(index, idOrNull(student),
+                        "firstName, lastName and email are required"));
+            } else if (student.getId() == 0) {
+                studentRepository.save(student);
+                results.add(StudentBatchResult.created(index, student.getId()));
+            } else {
+                Student savedStudent = existing.get(student.getId());
+                if (savedStudent == null) {
+                    results.add(StudentBatchResult.failed(index, student.getId(), "Student not found"));
+                    continue;
+                }
+                savedStudent.setFirstName(student.getFirstName());
+                savedStudent.setLastName(student.getLastName());
+                savedStudent.setEmail(student.getEmail());
+                results.add(StudentBatchResult.updated(index, savedStudent.getId()));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return results;
+    }
+
+    private static Long idOrNull(Student student) {
+        return student.getId() == 0 ? null : student.getId();
+    }
+}
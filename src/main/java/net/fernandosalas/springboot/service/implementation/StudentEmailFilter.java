@@ -0,0 +1,111 @@
+package net.fernandosalas.springboot.service.implementation;
+
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.config.StudentEmailFilterProperties;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+// Bloom filter over the emails in the table, so creating a student with an email never seen skips the duplicate
+// lookup. "Maybe" answers are confirmed against the table; emails written by other instances are not in it,
+// the unique index still catches those. Deleted and replaced emails stay in the filter as false positives.
+@Component
+@ConditionalOnBlockingStack
+public class StudentEmailFilter {
+
+    private static final int MAX_HASHES = 16;
+
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    // until the table has been read every email is a maybe
+    private volatile boolean loaded;
+
+    public StudentEmailFilter(StudentRepository studentRepository, PlatformTransactionManager transactionManager,
+                              StudentEmailFilterProperties properties) {
+        this.studentRepository = studentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        long expected = Math.max(1, properties.getExpectedEmails());
+        double falsePositiveRate = Math.min(0.5, Math.max(1e-9, properties.getFalsePositiveRate()));
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (optimalBits + 63) / 64));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = words * 64L;
+        this.hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) bitCount / expected * Math.log(2))));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<StudentView> students = studentRepository.streamAll()) {
+                students.forEach(student -> add(student.email()));
+            }
+        });
+        loaded = true;
+    }
+
+    public boolean mightContain(String email) {
+        if (!loaded || email == null) {
+            return true;
+        }
+        long hash1 = hash(email);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        long hash1 = hash(email);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            long mask = 1L << bit;
+            bits.getAndAccumulate((int) (bit >>> 6), mask, (word, set) -> word | set);
+        }
+    }
+
+    // adds the emails of a bulk write that were created or updated
+    public void putWritten(List<Student> students, List<StudentBatchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).status() != StudentBatchResult.Status.FAILED) {
+                add(students.get(i).getEmail());
+            }
+        }
+    }
+
+    // 64-bit FNV-1a over the characters, finished with the murmur3 mixer so both halves are usable
+    private static long hash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash = (hash ^ email.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash = (hash ^ (hash >>> 33)) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ (hash >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,317 @@
+package net.fernandosalas.springboot.service.implementation;
+
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// in-memory term index over first name, last name and email for type-ahead search.
+// Terms are kept sorted so a prefix is a range scan; readers never lock, writers are serialized.
+// Kept in sync by the service and the write-behind queue, so it only sees writes made through this instance.
+@Component
+@ConditionalOnBlockingStack
+public class StudentSearchIndex {
+
+    public static final int MAX_PAGE_SIZE = 50;
+    public static final int MAX_QUERY_LENGTH = 100;
+
+    // postings read per token and field; bounds the work of very short prefixes such as "a"
+    private static final int MAX_CANDIDATES = 10_000;
+    private static final int MAX_TOKENS = 5;
+    // typo tolerance only kicks in for tokens this long and when the prefix matches found fewer documents
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int FUZZY_THRESHOLD = MAX_PAGE_SIZE;
+    // terms compared per field, bounds the scan when many terms share the first two characters
+    private static final int MAX_FUZZY_TERMS = 20_000;
+    private static final double PREFIX_SCORE = 0.75;
+    private static final double FUZZY_SCORE = 0.5;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NAME_SEPARATORS = Pattern.compile("[\\s\\-']+");
+    private static final Pattern QUERY_SEPARATORS = Pattern.compile("[\\s,;]+");
+
+    enum Field {
+        FIRST_NAME(1.0), LAST_NAME(1.0), EMAIL(0.8);
+
+        private final double weight;
+
+        Field(double weight) {
+            this.weight = weight;
+        }
+
+        List<String> terms(StudentView student) {
+            return switch (this) {
+                case FIRST_NAME -> nameTerms(student.firstName());
+                case LAST_NAME -> nameTerms(student.lastName());
+                case EMAIL -> student.email() == null ? List.of() : List.of(normalize(student.email()));
+            };
+        }
+    }
+
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Map<Long, StudentView> documents = new ConcurrentHashMap<>();
+    private final Map<Field, ConcurrentSkipListMap<String, Set<Long>>> terms = new EnumMap<>(Field.class);
+    // ids removed while load() runs, its snapshot may still hold them; both guarded by the index lock
+    private final Set<Long> removedWhileLoading = new HashSet<>();
+    private boolean loading;
+
+    public StudentSearchIndex(StudentRepository studentRepository, PlatformTransactionManager transactionManager) {
+        this.studentRepository = studentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        for (Field field : Field.values()) {
+            terms.put(field, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    // existing rows are indexed once the application is ready; rows written meanwhile are not overwritten and rows
+    // deleted meanwhile are not put back
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (this) {
+            loading = true;
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<StudentView> students = studentRepository.streamAll()) {
+                    students.forEach(this::putLoaded);
+                }
+            });
+        } finally {
+            synchronized (this) {
+                loading = false;
+                removedWhileLoading.clear();
+            }
+        }
+    }
+
+    private synchronized void putLoaded(StudentView student) {
+        if (!documents.containsKey(student.id()) && !removedWhileLoading.contains(student.id())) {
+            put(student);
+        }
+    }
+
+    public synchronized void put(StudentView student) {
+        StudentView previous = documents.put(student.id(), student);
+        if (previous != null) {
+            unindex(previous);
+        }
+        for (Field field : Field.values()) {
+            for (String term : field.terms(student)) {
+                terms.get(field).computeIfAbsent(term, key -> ConcurrentHashMap.newKeySet()).add(student.id());
+            }
+        }
+    }
+
+    // indexes the items of a bulk write that were created or updated
+    public void putWritten(List<Student> students, List<StudentBatchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).status() != StudentBatchResult.Status.FAILED) {
+                put(StudentView.of(students.get(i)));
+            }
+        }
+    }
+
+    public synchronized void remove(long id) {
+        if (loading) {
+            removedWhileLoading.add(id);
+        }
+        StudentView previous = documents.remove(id);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    // every token of the query has to match a field; exact terms rank above prefixes, prefixes above typos
+    public StudentSearchPage search(String query, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // in long, a large page number would otherwise wrap around to a small or negative offset
+        long offset = (long) Math.max(0, page) * pageSize;
+        List<String> tokens = tokens(query);
+        if (tokens.isEmpty() || offset >= MAX_CANDIDATES) {
+            return new StudentSearchPage(List.of(), page, false);
+        }
+        int from = (int) offset;
+
+        Map<Long, Double> scores = null;
+        for (String token : tokens) {
+            Map<Long, Double> tokenScores = match(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                scores.keySet().retainAll(tokenScores.keySet());
+                scores.replaceAll((id, score) -> score + tokenScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return new StudentSearchPage(List.of(), page, false);
+            }
+        }
+
+        // only the documents up to the end of the requested page are ranked
+        Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey());
+        PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(ranking.reversed());
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            top.offer(entry);
+            if (top.size() > from + pageSize) {
+                top.poll();
+            }
+        }
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+        ranked.sort(ranking);
+
+        List<StudentView> content = new ArrayList<>(pageSize);
+        for (int i = from; i < ranked.size(); i++) {
+            StudentView student = documents.get(ranked.get(i).getKey());
+            if (student != null) {
+                content.add(student);
+            }
+        }
+        return new StudentSearchPage(content, page, scores.size() > from + pageSize);
+    }
+
+    private Map<Long, Double> match(String token) {
+        Map<Long, Double> scores = new HashMap<>();
+        for (Field field : Field.values()) {
+            NavigableMap<String, Set<Long>> prefixed = terms.get(field)
+                    .subMap(token, true, token + Character.MAX_VALUE, false);
+            int candidates = 0;
+            for (Map.Entry<String, Set<Long>> entry : prefixed.entrySet()) {
+                double score = field.weight * (entry.getKey().length() == token.length() ? 1.0 : PREFIX_SCORE);
+                for (Long id : entry.getValue()) {
+                    scores.merge(id, score, Math::max);
+                }
+                candidates += entry.getValue().size();
+                if (candidates >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH && scores.size() < FUZZY_THRESHOLD) {
+            matchFuzzy(token, scores);
+        }
+        return scores;
+    }
+
+    // the first two characters are taken as typed, which keeps the scan to a narrow range of terms
+    private void matchFuzzy(String token, Map<Long, Double> scores) {
+        int maxDistance = token.length() >= 8 ? 2 : 1;
+        String head = token.substring(0, 2);
+        for (Field field : Field.values()) {
+            NavigableMap<String, Set<Long>> candidates = terms.get(field)
+                    .subMap(head, true, head + Character.MAX_VALUE, false);
+            int scanned = 0;
+            for (Map.Entry<String, Set<Long>> entry : candidates.entrySet()) {
+                if (++scanned > MAX_FUZZY_TERMS) {
+                    break;
+                }
+                int distance = prefixDistance(token, entry.getKey(), maxDistance);
+                if (distance > 0 && distance <= maxDistance) {
+                    double score = field.weight * FUZZY_SCORE / distance;
+                    for (Long id : entry.getValue()) {
+                        scores.merge(id, score, Math::max);
+                    }
+                }
+            }
+        }
+    }
+
+    // smallest edit distance between the token and any prefix of the term, or maxDistance + 1 when larger
+    static int prefixDistance(String token, String term, int maxDistance) {
+        int columns = Math.min(term.length(), token.length() + maxDistance);
+        int[] previous = new int[columns + 1];
+        int[] current = new int[columns + 1];
+        for (int j = 0; j <= columns; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= token.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= columns; j++) {
+                int cost = token.charAt(i - 1) == term.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Arrays.stream(previous).min().orElse(maxDistance + 1);
+    }
+
+    private void unindex(StudentView student) {
+        for (Field field : Field.values()) {
+            ConcurrentSkipListMap<String, Set<Long>> fieldTerms = terms.get(field);
+            for (String term : field.terms(student)) {
+                Set<Long> ids = fieldTerms.get(term);
+                if (ids != null) {
+                    ids.remove(student.id());
+                    if (ids.isEmpty()) {
+                        fieldTerms.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> tokens(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        String normalized = normalize(query.length() > MAX_QUERY_LENGTH ? query.substring(0, MAX_QUERY_LENGTH) : query);
+        return Arrays.stream(QUERY_SEPARATORS.split(normalized))
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .limit(MAX_TOKENS)
+                .toList();
+    }
+
+    private static List<String> nameTerms(String name) {
+        if (name == null) {
+            return List.of();
+        }
+        return Arrays.stream(NAME_SEPARATORS.split(normalize(name)))
+                .filter(term -> !term.isEmpty())
+                .distinct()
+                .toList();
+    }
+
+    static String normalize(String value) {
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
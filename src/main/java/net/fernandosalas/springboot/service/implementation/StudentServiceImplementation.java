@@ -1,44 +1,314 @@
 package net.fernandosalas.springboot.service.implementation;
 
+import jakarta.persistence.PersistenceException;
 import lombok.AllArgsConstructor;
+import net.fernandosalas.springboot.config.CacheConfig;
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.config.StudentBatchProperties;
+import net.fernandosalas.springboot.config.StudentShardingProperties;
+import net.fernandosalas.springboot.datasource.ReadYourWrites;
+import net.fernandosalas.springboot.dto.StudentBatchDeleteResult;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
 import net.fernandosalas.springboot.entity.Student;
 import net.fernandosalas.springboot.repository.StudentRepository;
 import net.fernandosalas.springboot.service.StudentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@ConditionalOnBlockingStack
 @AllArgsConstructor
 public class StudentServiceImplementation implements StudentService {
 
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private StudentBatchWriter studentBatchWriter;
+
+    @Autowired
+    private StudentBatchProperties studentBatchProperties;
+
+    @Autowired
+    private StudentWriteBehindQueue studentWriteBehindQueue;
+
+    @Autowired
+    private StudentSearchIndex studentSearchIndex;
+
+    @Autowired
+    private StudentEmailFilter studentEmailFilter;
+
+    @Autowired
+    private StudentShardingProperties studentShardingProperties;
+
     @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#result.id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, key = "#student.email")
+    })
     public Student saveStudent(Student student) {
-        return studentRepository.save(student);
+        rejectTakenEmail(student.getEmail());
+        Student savedStudent = withUniqueEmail(student.getEmail(), () -> studentRepository.save(student));
+        studentSearchIndex.put(StudentView.of(savedStudent));
+        studentEmailFilter.add(savedStudent.getEmail());
+        return savedStudent;
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, allEntries = true)
+    })
+    public List<StudentBatchResult> saveStudents(List<Student> students) {
+        int chunkSize = Math.max(1, studentBatchProperties.getChunkSize());
+        List<StudentBatchResult> results = new ArrayList<>(students.size());
+        for (int from = 0; from < students.size(); from += chunkSize) {
+            List<Student> chunk = students.subList(from, Math.min(from + chunkSize, students.size()));
+            try {
+                List<StudentBatchResult> chunkResults = studentShardingProperties.isEnabled()
+                        ? writeShardedChunk(from, chunk)
+                        : studentBatchWriter.writeChunk(from, chunk);
+                studentSearchIndex.putWritten(chunk, chunkResults);
+                studentEmailFilter.putWritten(chunk, chunkResults);
+                results.addAll(chunkResults);
+            } catch (DataAccessException | PersistenceException e) {
+                // the chunk was rolled back as a whole, report every item of it. Sharded, a shard's failure does not get
+                // here: ShardingAspect reports that shard's items and the other shards' parts stay committed
+                String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(StudentBatchResult.failed(from + i, null, error));
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean isWriteBehind() {
+        return studentWriteBehindQueue.isEnabled();
+    }
+
+    @Override
+    public StudentWriteStatus submitStudent(Student student) {
+        rejectTakenEmail(student.getEmail());
+        return studentWriteBehindQueue.submit(student);
+    }
+
+    @Override
+    public Optional<StudentWriteStatus> getWriteStatus(UUID trackingId) {
+        return studentWriteBehindQueue.status(trackingId);
+    }
+
+    @Override
+    public List<StudentView> getAllStudents() {
+        return studentRepository.findAllViews();
+    }
+
+    @Override
+    public StudentPage getStudents(long after, int size) {
+        int pageSize = Math.max(1, Math.min(size, StudentPage.MAX_SIZE));
+        // fetch one extra row to know whether another page follows
+        List<StudentView> students = studentRepository.findViewsAfter(after, PageRequest.of(0, pageSize + 1));
+        if (students.size() <= pageSize) {
+            return new StudentPage(students, null);
+        }
+        List<StudentView> content = List.copyOf(students.subList(0, pageSize));
+        return new StudentPage(content, content.get(pageSize - 1).id());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportStudents(Consumer<StudentView> consumer) {
+        // projections are never attached, the persistence context stays empty however many rows are streamed
+        try (Stream<StudentView> students = studentRepository.streamAll()) {
+            students.forEach(consumer);
+        }
+    }
+
+    // cache misses read the primary, a lagging replica would otherwise be cached for the whole entry lifetime
+    @Override
+    @Cacheable(cacheNames = CacheConfig.STUDENTS, key = "#id")
+    public Optional<StudentView> getStudentById(long id) {
+        return ReadYourWrites.onPrimary(() -> studentRepository.findViewById(id));
+    }
+
+    @Override
+    @Cacheable(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, key = "#email")
+    public Optional<StudentView> getStudentByEmail(String email) {
+        return ReadYourWrites.onPrimary(() -> studentRepository.findViewByEmail(email));
     }
 
     @Override
-    public List<Student> getAllStudents() {
-        return studentRepository.findAll();
+    public List<StudentView> getStudentsByName(String firstName, String lastName, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, StudentPage.MAX_SIZE));
+        return studentRepository.findByJPQLNamedParams(firstName, lastName, PageRequest.of(0, pageSize));
     }
 
     @Override
-    public Optional<Student> getStudentById(long id) {
-        return studentRepository.findById(id);
+    public StudentSearchPage searchStudents(String query, int page, int size) {
+        return studentSearchIndex.search(query, page, size);
     }
 
+    // the previous email of an updated student is unknown here, so the email cache is dropped as a whole
     @Override
-    public Student updateStudent(Student student) {
-        return studentRepository.save(student);
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, allEntries = true)
+    })
+    public Optional<Student> updateStudent(long id, Student student, Long expectedVersion) {
+        // microseconds, the precision the timestamp column keeps, so the returned student matches later reads
+        Instant updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        // unsharded, the unique index alone rejects a taken email: a student mostly keeps its own, which the filter
+        // always answers "maybe" for. Sharded, the index only sees the shard of the id
+        if (studentShardingProperties.isEnabled()) {
+            rejectEmailOfAnotherStudent(id, student.getEmail());
+        }
+        int updated = withUniqueEmail(student.getEmail(), () -> studentRepository.updateStudent(id,
+                student.getFirstName(), student.getLastName(), student.getEmail(), expectedVersion, updatedAt));
+        if (updated == 0) {
+            // only a failed conditional update costs the extra lookup to tell 404 from a stale version
+            if (expectedVersion != null && studentRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException("Student " + id + " was modified concurrently");
+            }
+            return Optional.empty();
+        }
+        // a conditional update wrote the version after the expected one. An unconditional one does not know it, and
+        // it is not read back: the version is not serialized and the controller sends no ETag without If-Match
+        Student updatedStudent = Student.builder()
+                .id(id)
+                .firstName(student.getFirstName())
+                .lastName(student.getLastName())
+                .email(student.getEmail())
+                .version(expectedVersion == null ? 0 : expectedVersion + 1)
+                .updatedAt(updatedAt)
+                .build();
+        studentSearchIndex.put(StudentView.of(updatedStudent));
+        studentEmailFilter.add(updatedStudent.getEmail());
+        return Optional.of(updatedStudent);
     }
 
     @Override
-    public void deleteStudent(long id) {
-        studentRepository.deleteById(id);
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, allEntries = true)
+    })
+    public boolean deleteStudent(long id) {
+        if (studentRepository.deleteStudentById(id) == 0) {
+            return false;
+        }
+        studentSearchIndex.remove(id);
+        return true;
+    }
+
+    @Override
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS, allEntries = true),
+            @CacheEvict(cacheNames = CacheConfig.STUDENTS_BY_EMAIL, allEntries = true)
+    })
+    public StudentBatchDeleteResult deleteStudents(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().distinct().toList();
+        int chunkSize = Math.max(1, studentBatchProperties.getChunkSize());
+        int deleted = 0;
+        // one statement and one transaction per chunk keeps the IN list and the undo log bounded
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Long> chunk = distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size()));
+            deleted += studentRepository.deleteStudentsByIds(chunk);
+            chunk.forEach(studentSearchIndex::remove);
+        }
+        return new StudentBatchDeleteResult(distinctIds.size(), deleted);
+    }
+
+    // most new emails are answered by the filter alone, only a "maybe" costs a lookup on the unique index
+    private void rejectTakenEmail(String email) {
+        if (studentEmailFilter.mightContain(email) && studentRepository.findViewByEmail(email).isPresent()) {
+            throw new DuplicateKeyException("Email " + email + " is already taken");
+        }
+    }
+
+    // sharded, the unique index of a shard misses an email stored on another one: a student keeps the shard of its
+    // id when its email changes, so every shard is asked, excluding the student itself
+    private void rejectEmailOfAnotherStudent(long id, String email) {
+        if (studentEmailFilter.mightContain(email)
+                && studentRepository.findViewByEmail(email).filter(view -> view.id() != id).isPresent()) {
+            throw new DuplicateKeyException("Email " + email + " is already taken");
+        }
+    }
+
+    // the sharded counterpart of that check for a chunk, one lookup across the shards for all of its emails; the
+    // items whose email another student holds fail here and the rest is written
+    private List<StudentBatchResult> writeShardedChunk(int offset, List<Student> chunk) {
+        List<String> emails = chunk.stream()
+                .map(Student::getEmail)
+                .filter(email -> email != null && studentEmailFilter.mightContain(email))
+                .distinct()
+                .toList();
+        Map<String, Long> owners = emails.isEmpty() ? Map.of() : studentRepository.findViewsByEmailIn(emails).stream()
+                .collect(Collectors.toMap(StudentView::email, StudentView::id, (first, second) -> first));
+        StudentBatchResult[] results = new StudentBatchResult[chunk.size()];
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            Student student = chunk.get(i);
+            Long owner = owners.get(student.getEmail());
+            if (owner != null && owner != student.getId()) {
+                results[i] = StudentBatchResult.failed(offset + i, student.getId() == 0 ? null : student.getId(),
+                        "Email " + student.getEmail() + " is already taken");
+            } else {
+                positions.add(i);
+            }
+        }
+        if (!positions.isEmpty()) {
+            List<Student> rest = positions.stream().map(chunk::get).toList();
+            for (StudentBatchResult result : studentBatchWriter.writeChunk(0, rest)) {
+                int position = positions.get(result.index());
+                results[position] = new StudentBatchResult(offset + position, result.id(), result.status(), result.error());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    // a concurrent write, or one on another instance, can take the email after the check
+    private static <T> T withUniqueEmail(String email, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailConflict(e)) {
+                throw new DuplicateKeyException("Email " + email + " is already taken", e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isEmailConflict(DataIntegrityViolationException e) {
+        String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(Student.EMAIL_CONSTRAINT);
     }
 }
@@ -0,0 +1,247 @@
+package net.fernandosalas.springboot.service.implementation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import net.fernandosalas.springboot.config.CacheConfig;
+import net.fernandosalas.springboot.config.ConditionalOnBlockingStack;
+import net.fernandosalas.springboot.config.StudentWriteBehindProperties;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
+import net.fernandosalas.springboot.entity.Student;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// bounded queue of acknowledged student creations, drained in batches by a single flusher thread
+@Slf4j
+@Component
+@ConditionalOnBlockingStack
+public class StudentWriteBehindQueue implements SmartLifecycle {
+
+    private final StudentBatchWriter studentBatchWriter;
+    private final StudentSearchIndex studentSearchIndex;
+    private final StudentEmailFilter studentEmailFilter;
+    private final CacheManager cacheManager;
+    private final StudentWriteBehindProperties properties;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<UUID, StudentWriteStatus> statuses;
+    // submissions hold the read lock so none can slip in after stop() closed the queue
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public StudentWriteBehindQueue(StudentBatchWriter studentBatchWriter, StudentSearchIndex studentSearchIndex,
+                                   StudentEmailFilter studentEmailFilter, CacheManager cacheManager,
+                                   StudentWriteBehindProperties properties) {
+        this.studentBatchWriter = studentBatchWriter;
+        this.studentSearchIndex = studentSearchIndex;
+        this.studentEmailFilter = studentEmailFilter;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getCapacity()));
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getStatusRetention())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public StudentWriteStatus submit(Student student) {
+        UUID trackingId = UUID.randomUUID();
+        StudentWriteStatus pending = StudentWriteStatus.pending(trackingId);
+        acceptLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new RejectedExecutionException("Student write queue is not accepting writes");
+            }
+            statuses.put(trackingId, pending);
+            if (!queue.offer(new Submission(trackingId, student.getId(), student))) {
+                statuses.invalidate(trackingId);
+                throw new RejectedExecutionException("Student write queue is full");
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        return pending;
+    }
+
+    public Optional<StudentWriteStatus> status(UUID trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return properties.isEnabled();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "student-write-behind");
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything the flusher left behind is written before the database goes away
+        List<Submission> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize()) {
+            flushSafely(remaining.subList(from, Math.min(from + batchSize(), remaining.size())));
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stopped after the web server so in-flight requests can still enqueue, and before the DataSource closes
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushLoop() {
+        try {
+            while (running || !queue.isEmpty()) {
+                List<Submission> batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    flushSafely(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // waits up to flush-interval for the first submission, then up to flush-interval more to fill the batch
+    private List<Submission> nextBatch() throws InterruptedException {
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        List<Submission> batch = new ArrayList<>(batchSize());
+        Submission first = queue.poll(intervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + intervalNanos;
+        while (batch.size() < batchSize()) {
+            queue.drainTo(batch, batchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize() || remaining <= 0 || !running) {
+                break;
+            }
+            Submission next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    // no batch may end the flusher: whatever flush did not report is reported failed, and the loop goes on
+    private void flushSafely(List<Submission> batch) {
+        try {
+            flush(batch);
+        } catch (RuntimeException e) {
+            log.error("Student write-behind batch of {} failed", batch.size(), e);
+            String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            for (Submission submission : batch) {
+                statuses.asMap().computeIfPresent(submission.trackingId(), (trackingId, status) ->
+                        status.status() == StudentWriteStatus.Status.PENDING ? StudentWriteStatus.failed(trackingId, error) : status);
+            }
+        }
+    }
+
+    private void flush(List<Submission> batch) {
+        List<Student> students = batch.stream().map(Submission::student).toList();
+        List<StudentBatchResult> results;
+        try {
+            results = studentBatchWriter.writeChunk(0, students);
+        } catch (RuntimeException e) {
+            // any failure of the chunk's transaction, a constraint as much as a commit or driver error, rolled back
+            // every row of it
+            if (batch.size() == 1) {
+                String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                statuses.put(batch.get(0).trackingId(), StudentWriteStatus.failed(batch.get(0).trackingId(), error));
+                evict(students);
+                return;
+            }
+            // retry one by one so a single bad row fails alone; ids handed out by the rolled back inserts are
+            // discarded first
+            batch.forEach(submission -> {
+                submission.student().setId(submission.id());
+                flushSafely(List.of(submission));
+            });
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            statuses.put(batch.get(i).trackingId(), toStatus(batch.get(i).trackingId(), results.get(i)));
+        }
+        evict(students);
+        // the rows are committed: the in-memory structures catching up must not turn them into failures or retries
+        try {
+            studentSearchIndex.putWritten(students, results);
+            studentEmailFilter.putWritten(students, results);
+        } catch (RuntimeException e) {
+            log.error("Search index or email filter update failed after a write-behind batch", e);
+        }
+    }
+
+    private void evict(List<Student> students) {
+        org.springframework.cache.Cache byId = cacheManager.getCache(CacheConfig.STUDENTS);
+        org.springframework.cache.Cache byEmail = cacheManager.getCache(CacheConfig.STUDENTS_BY_EMAIL);
+        for (Student student : students) {
+            if (byId != null && student.getId() != 0) {
+                byId.evict(student.getId());
+            }
+            if (byEmail != null && student.getEmail() != null) {
+                byEmail.evict(student.getEmail());
+            }
+        }
+    }
+
+    private int batchSize() {
+        return Math.max(1, properties.getBatchSize());
+    }
+
+    private static StudentWriteStatus toStatus(UUID trackingId, StudentBatchResult result) {
+        return result.status() == StudentBatchResult.Status.FAILED
+                ? StudentWriteStatus.failed(trackingId, result.error())
+                : StudentWriteStatus.written(trackingId, result.id());
+    }
+
+    private record Submission(UUID trackingId, long id, Student student) {
+    }
+}
@@ -0,0 +1,12 @@
+package net.fernandosalas.springboot.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// a StudentRepository method that runs on every shard in parallel, its results merged in id order
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FanOut {
+}
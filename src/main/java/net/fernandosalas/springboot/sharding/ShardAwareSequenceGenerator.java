@@ -0,0 +1,55 @@
+package net.fernandosalas.springboot.sharding;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+// pooled sequence ids that encode their shard: id = value * shards + shard, where value comes from the
+// sequence of the shard the row is inserted into. With a single shard this is the plain pooled sequence
+public class ShardAwareSequenceGenerator extends SequenceStyleGenerator {
+
+    // Hibernate setting, put by ShardingConfig
+    public static final String SHARD_COUNT = "student.sharding.shard-count";
+
+    private int shardCount = 1;
+    // each shard's sequence hands out its own blocks, so each needs its own optimizer state
+    private final Map<Integer, Optimizer> optimizers = new ConcurrentHashMap<>();
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        super.configure(type, params, serviceRegistry);
+        Object shards = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SHARD_COUNT);
+        if (shards != null) {
+            shardCount = Integer.parseInt(shards.toString());
+        }
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        if (shardCount == 1) {
+            return super.generate(session, object);
+        }
+        int shard = ShardContext.current();
+        Optimizer optimizer = optimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(
+                StandardOptimizerDescriptor.POOLED.getExternalName(), Long.class,
+                getDatabaseStructure().getIncrementSize(), getDatabaseStructure().getInitialValue()));
+        long value = ((Number) optimizer.generate(getDatabaseStructure().buildCallback(session))).longValue();
+        return value * shardCount + shard;
+    }
+
+    // bulk HQL inserts would take ids straight from the sequence, without the shard
+    @Override
+    public boolean supportsBulkInsertionIdentifierGeneration() {
+        return shardCount == 1 && super.supportsBulkInsertionIdentifierGeneration();
+    }
+}
@@ -0,0 +1,37 @@
+package net.fernandosalas.springboot.sharding;
+
+import java.util.concurrent.Callable;
+
+// the shard the current thread works on; read by ShardRoutingDataSource when a connection is fetched
+// and by ShardAwareSequenceGenerator when an id is assigned
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    // unbound threads work on the first shard
+    public static int current() {
+        Integer shard = CURRENT.get();
+        return shard == null ? 0 : shard;
+    }
+
+    public static <T> T call(int shard, Callable<T> callable) throws Exception {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return callable.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package net.fernandosalas.springboot.sharding;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// k-way merge of one cursor per shard, each already sorted. A cursor has to be read inside its shard's transaction,
+// which is bound to a thread, so every shard is read on a cursor thread into a small buffer and the caller merges
+// the buffer heads: the heap holds at most BUFFER rows per shard whatever the size of the table
+final class ShardCursorMerge implements Iterator<Object> {
+
+    private static final int BUFFER = 500;
+    private static final Object END = new Object();
+
+    private record Failure(RuntimeException exception) {
+    }
+
+    private record Head(int shard, Object row) {
+    }
+
+    private final List<BlockingQueue<Object>> buffers = new ArrayList<>();
+    private final List<Future<?>> readers = new ArrayList<>();
+    private final StudentShards shards;
+    private final PriorityQueue<Head> heads;
+    private volatile boolean closed;
+    private boolean started;
+
+    private ShardCursorMerge(StudentShards shards, Comparator<Object> order) {
+        this.shards = shards;
+        this.heads = new PriorityQueue<>(Comparator.comparing(Head::row, order));
+    }
+
+    // the stream must be closed, like the repository cursors it reads from
+    static Stream<Object> open(StudentShards shards, TransactionTemplate transaction, Comparator<Object> order,
+                               Supplier<Stream<?>> cursor) {
+        try {
+            shards.beginExport();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to open shard cursors", e);
+        }
+        ShardCursorMerge merge = new ShardCursorMerge(shards, order);
+        for (int shard = 0; shard < shards.count(); shard++) {
+            BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(BUFFER);
+            merge.buffers.add(buffer);
+            merge.readers.add(shards.start(shard, () -> merge.read(transaction, buffer, cursor)));
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merge, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(merge::close);
+    }
+
+    // runs on the shard's cursor thread, the cursor is called with that shard bound
+    private void read(TransactionTemplate transaction, BlockingQueue<Object> buffer, Supplier<Stream<?>> cursor) {
+        Object last;
+        try {
+            transaction.executeWithoutResult(status -> {
+                try (Stream<?> rows = cursor.get()) {
+                    Iterator<?> iterator = rows.iterator();
+                    while (!closed && iterator.hasNext()) {
+                        buffer.put(iterator.next());
+                    }
+                } catch (InterruptedException e) {
+                    // closed while waiting for room, the read-only transaction just rolls back
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Shard cursor closed", e);
+                }
+            });
+            last = END;
+        } catch (RuntimeException e) {
+            last = new Failure(e);
+        }
+        if (closed) {
+            return;
+        }
+        try {
+            buffer.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!started) {
+            started = true;
+            for (int shard = 0; shard < buffers.size(); shard++) {
+                advance(shard);
+            }
+        }
+        return !heads.isEmpty();
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Head head = heads.poll();
+        advance(head.shard());
+        return head.row();
+    }
+
+    private void advance(int shard) {
+        Object row;
+        try {
+            row = buffers.get(shard).take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Interrupted while merging shard cursors", e);
+        }
+        if (row instanceof Failure failure) {
+            close();
+            throw failure.exception();
+        }
+        if (row != END) {
+            heads.add(new Head(shard, row));
+        }
+    }
+
+    // called on the caller's thread, by a failed read and again when the stream is closed
+    private void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        readers.forEach(reader -> reader.cancel(true));
+        shards.endExport();
+    }
+}
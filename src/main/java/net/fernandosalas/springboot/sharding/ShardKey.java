@@ -0,0 +1,13 @@
+package net.fernandosalas.springboot.sharding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// the StudentRepository argument a call is routed by: an id or a student runs on its shard, a collection of them
+// is split per shard. Repository methods without one must be marked @FanOut, see ShardingAspect
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,264 @@
+package net.fernandosalas.springboot.sharding;
+
+import jakarta.persistence.PersistenceException;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// routes StudentRepository calls by their @ShardKey argument: an id goes to the shard in the id, a new student to
+// the shard of its email, and id or student collections are split per shard. @FanOut methods run on every shard in
+// parallel and are merged; any other repository method is refused rather than sent to one shard or all of them.
+// Calls made while a shard is bound (inside a routed call or chunk) are left alone
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ShardingAspect {
+
+    private static final Comparator<Object> BY_STUDENT_ID = Comparator.comparingLong(ShardingAspect::idOf);
+    private static final int NOT_ROUTED = -1;
+
+    private final StudentShards shards;
+    private final TransactionTemplate readOnlyTransaction;
+    // position of the @ShardKey parameter per method, NOT_ROUTED for @FanOut methods
+    private final Map<Method, Integer> shardKeys = new ConcurrentHashMap<>();
+
+    public ShardingAspect(StudentShards shards, PlatformTransactionManager transactionManager) {
+        this.shards = shards;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // execution rather than this(), which misses the CRUD methods StudentRepository only inherits
+    @Around("execution(* net.fernandosalas.springboot.repository.StudentRepository+.*(..))")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ShardContext.isBound()) {
+            return joinPoint.proceed();
+        }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return joinPoint.proceed();
+        }
+        Object[] args = joinPoint.getArgs();
+        int shardKey = shardKeys.computeIfAbsent(method, ShardingAspect::shardKeyOf);
+        if (shardKey == NOT_ROUTED) {
+            if (Page.class.isAssignableFrom(method.getReturnType())) {
+                throw new UnsupportedOperationException(method.getName() + " returns a Page, which cannot be merged across shards");
+            }
+            return onEveryShard(method, joinPoint, args);
+        }
+        Object key = args[shardKey];
+        if (key instanceof Iterable<?> elements) {
+            return bySplit(method, joinPoint, args, shardKey, elements);
+        }
+        int shard = key instanceof Student student ? shards.shardOf(student) : shards.shardOf(((Number) key).longValue());
+        return onShard(shard, joinPoint, args);
+    }
+
+    // a chunk holds students of every shard: each shard writes its part in its own transaction, and a shard that
+    // fails reports only its own items, the parts other shards committed stand
+    @Around("execution(* net.fernandosalas.springboot.service.implementation.StudentBatchWriter.writeChunk(int, java.util.List))")
+    public Object writeChunk(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (ShardContext.isBound()) {
+            return joinPoint.proceed();
+        }
+        int offset = (Integer) joinPoint.getArgs()[0];
+        @SuppressWarnings("unchecked")
+        List<Student> chunk = (List<Student>) joinPoint.getArgs()[1];
+        Map<Integer, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            positions.computeIfAbsent(shards.shardOf(chunk.get(i)), shard -> new ArrayList<>()).add(i);
+        }
+        List<Integer> shardIds = new ArrayList<>(positions.keySet());
+        List<Object> partial = run(() -> shards.onShards(shardIds, shard -> {
+            List<Student> part = positions.get(shard).stream().map(chunk::get).toList();
+            try {
+                return proceed(joinPoint, new Object[]{0, part});
+            } catch (DataAccessException | PersistenceException e) {
+                String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                List<StudentBatchResult> failed = new ArrayList<>(part.size());
+                for (int i = 0; i < part.size(); i++) {
+                    failed.add(StudentBatchResult.failed(i, null, error));
+                }
+                return failed;
+            }
+        }));
+
+        StudentBatchResult[] results = new StudentBatchResult[chunk.size()];
+        for (int s = 0; s < shardIds.size(); s++) {
+            List<Integer> shardPositions = positions.get(shardIds.get(s));
+            @SuppressWarnings("unchecked")
+            List<StudentBatchResult> shardResults = (List<StudentBatchResult>) partial.get(s);
+            for (StudentBatchResult result : shardResults) {
+                int position = shardPositions.get(result.index());
+                results[position] = new StudentBatchResult(offset + position, result.id(), result.status(), result.error());
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private Object onShard(int shard, ProceedingJoinPoint joinPoint, Object[] args) throws Throwable {
+        return run(() -> ShardContext.call(shard, () -> proceed(joinPoint, args)));
+    }
+
+    private Object bySplit(Method method, ProceedingJoinPoint joinPoint, Object[] args, int shardKey,
+                           Iterable<?> elements) throws Throwable {
+        Map<Integer, List<Object>> parts = new LinkedHashMap<>();
+        for (Object element : elements) {
+            int shard = element instanceof Student student ? shards.shardOf(student) : shards.shardOf(((Number) element).longValue());
+            parts.computeIfAbsent(shard, key -> new ArrayList<>()).add(element);
+        }
+        if (parts.isEmpty()) {
+            return joinPoint.proceed();
+        }
+        List<Integer> shardIds = new ArrayList<>(parts.keySet());
+        List<Object> results = run(() -> shards.onShards(shardIds, shard -> {
+            Object[] shardArgs = args.clone();
+            shardArgs[shardKey] = parts.get(shard);
+            return proceed(joinPoint, shardArgs);
+        }));
+        return merge(method, results, null);
+    }
+
+    private Object onEveryShard(Method method, ProceedingJoinPoint joinPoint, Object[] args) throws Throwable {
+        // every shard returns enough rows to fill the requested page on its own, the merge cuts it down
+        Pageable pageable = Arrays.stream(args)
+                .filter(arg -> arg instanceof Pageable page && page.isPaged())
+                .map(Pageable.class::cast)
+                .findFirst()
+                .orElse(null);
+        Object[] shardArgs = args.clone();
+        if (pageable != null) {
+            for (int i = 0; i < shardArgs.length; i++) {
+                if (shardArgs[i] == pageable) {
+                    shardArgs[i] = PageRequest.of(0, (int) pageable.getOffset() + pageable.getPageSize(), pageable.getSort());
+                }
+            }
+        }
+        if (Stream.class.isAssignableFrom(method.getReturnType())) {
+            // cursors are read out inside each shard's transaction and merged as the caller consumes them
+            Stream<Object> merged = ShardCursorMerge.open(shards, readOnlyTransaction, BY_STUDENT_ID,
+                    () -> (Stream<?>) proceed(joinPoint, shardArgs));
+            return pageable == null ? merged : merged.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        List<Object> results = run(() -> shards.onEveryShard(shard -> proceed(joinPoint, shardArgs)));
+        return merge(method, results, pageable);
+    }
+
+    private static Object merge(Method method, List<Object> results, Pageable pageable) {
+        Class<?> type = method.getReturnType();
+        if (type == void.class) {
+            return null;
+        }
+        if (type == Optional.class) {
+            return results.stream()
+                    .map(Optional.class::cast)
+                    .filter(Optional::isPresent)
+                    .findFirst()
+                    .orElse(Optional.empty());
+        }
+        if (type == boolean.class || type == Boolean.class) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (type == long.class || type == Long.class) {
+            return results.stream().mapToLong(result -> ((Number) result).longValue()).sum();
+        }
+        if (type == int.class || type == Integer.class) {
+            return results.stream().mapToInt(result -> ((Number) result).intValue()).sum();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            List<Object> rows = new ArrayList<>();
+            results.forEach(result -> rows.addAll((Collection<?>) result));
+            rows.sort(BY_STUDENT_ID);
+            Stream<Object> merged = rows.stream();
+            if (pageable != null) {
+                merged = merged.skip(pageable.getOffset()).limit(pageable.getPageSize());
+            }
+            return merged.toList();
+        }
+        throw new UnsupportedOperationException(method.getName() + " returns " + type.getSimpleName()
+                + ", which cannot be merged across shards");
+    }
+
+    private static int shardKeyOf(Method method) {
+        // a call through the erased signature of a redeclared CRUD method reaches the bridge, not the declaration
+        Method declared = BridgeMethodResolver.findBridgedMethod(method);
+        Annotation[][] annotations = declared.getParameterAnnotations();
+        for (int i = 0; i < annotations.length; i++) {
+            for (Annotation annotation : annotations[i]) {
+                if (annotation instanceof ShardKey) {
+                    return i;
+                }
+            }
+        }
+        if (declared.isAnnotationPresent(FanOut.class)) {
+            return NOT_ROUTED;
+        }
+        throw new UnsupportedOperationException(declared.getDeclaringClass().getSimpleName() + "." + declared.getName()
+                + " has neither a @ShardKey parameter nor @FanOut, it cannot be routed across shards");
+    }
+
+    private static long idOf(Object row) {
+        if (row instanceof StudentView view) {
+            return view.id();
+        }
+        if (row instanceof Student student) {
+            return student.getId();
+        }
+        return 0;
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, Object[] args) {
+        try {
+            return joinPoint.proceed(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ShardCallException(t);
+        }
+    }
+
+    private static <T> T run(ShardCall<T> call) throws Throwable {
+        try {
+            return call.call();
+        } catch (ShardCallException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardCall<T> {
+        T call() throws Exception;
+    }
+
+    private static final class ShardCallException extends RuntimeException {
+        private ShardCallException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.fernandosalas.springboot.sharding;
+
+import net.fernandosalas.springboot.entity.Student;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+// the shard layout, the pool that runs fan-out queries, one task per shard, and the threads that read export
+// cursors. Owns the shard pools
+public class StudentShards implements AutoCloseable {
+
+    // Hikari's default pool size, concurrent fan-outs can keep every shard's pool busy but not queue on it
+    private static final int THREADS_PER_SHARD = 10;
+
+    private final List<DataSource> dataSources;
+    private final ExecutorService fanOut;
+    // a cursor reader holds its thread for a whole export, blocked whenever its consumer falls behind; on the fixed
+    // fan-out pool enough concurrent exports would take every thread and leave other exports' readers queued behind
+    // them, and fan-out queries too. Unbounded instead, a reader waits for a connection of its shard at most
+    private final ExecutorService cursors;
+    // a merged export holds a connection of every shard until its consumer is done, and needs all of them for its
+    // first row: exports splitting a shard's pool between them would each wait on a connection another one holds.
+    // At most half a pool of them run at once, the other half stays free for fan-out queries
+    private final Semaphore exports = new Semaphore(THREADS_PER_SHARD / 2, true);
+
+    public StudentShards(List<DataSource> dataSources) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("student.sharding.shards needs at least one shard");
+        }
+        this.dataSources = List.copyOf(dataSources);
+        this.fanOut = Executors.newFixedThreadPool(dataSources.size() * THREADS_PER_SHARD, threads("student-shard-"));
+        this.cursors = Executors.newCachedThreadPool(threads("student-shard-cursor-"));
+    }
+
+    public int count() {
+        return dataSources.size();
+    }
+
+    public List<DataSource> dataSources() {
+        return dataSources;
+    }
+
+    // ids carry their shard, see ShardAwareSequenceGenerator
+    public int shardOf(long id) {
+        return (int) Math.floorMod(id, (long) count());
+    }
+
+    // new students are placed by email, so concurrent inserts of one email meet on the same unique index
+    public int shardOf(Student student) {
+        if (student.getId() != 0) {
+            return shardOf(student.getId());
+        }
+        String email = student.getEmail();
+        return email == null ? 0 : Math.floorMod(email.toLowerCase(Locale.ROOT).hashCode(), count());
+    }
+
+    // runs task(shard) for every shard in parallel, each bound to its shard; results are in shard order
+    public <T> List<T> onEveryShard(IntFunction<T> task) throws Exception {
+        List<Integer> shards = new ArrayList<>(count());
+        for (int shard = 0; shard < count(); shard++) {
+            shards.add(shard);
+        }
+        return onShards(shards, task);
+    }
+
+    public <T> List<T> onShards(List<Integer> shards, IntFunction<T> task) throws Exception {
+        if (shards.size() == 1) {
+            int shard = shards.get(0);
+            return List.of(ShardContext.call(shard, () -> task.apply(shard)));
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futures.add(fanOut.submit(() -> ShardContext.call(shard, () -> task.apply(shard))));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return results;
+    }
+
+    // starts task on a cursor thread of its own bound to the shard, for work the caller consumes while it runs
+    public Future<?> start(int shard, Runnable task) {
+        return cursors.submit(() -> ShardContext.call(shard, () -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    // waits until a merged export may take a connection of every shard, endExport gives it back
+    public void beginExport() throws InterruptedException {
+        exports.acquire();
+    }
+
+    public void endExport() {
+        exports.release();
+    }
+
+    private static ThreadFactory threads(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @Override
+    public void close() throws Exception {
+        fanOut.shutdownNow();
+        cursors.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
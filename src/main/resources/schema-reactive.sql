@@ -0,0 +1,15 @@
+-- the students table as Hibernate creates it for the Student entity, for the reactive profile
+create sequence if not exists students_seq start with 1 increment by 50;
+
+create table if not exists students (
+    id bigint not null,
+    first_name varchar(255) not null,
+    last_name varchar(255) not null,
+    email varchar(255) not null,
+    version bigint not null,
+    updated_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create unique index if not exists uk_students_email on students (email);
+create index if not exists idx_students_name on students (first_name, last_name);
@@ -0,0 +1,33 @@
+package net.fernandosalas.springboot;
+
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("fast-start")
+class FastStartApplicationTests {
+
+	@Autowired
+	private StudentService studentService;
+
+	@Test
+	void givenFastStartProfile_whenSavingStudent_thenDeferredRepositoryIsUsable() {
+		Student savedStudent = studentService.saveStudent(Student.builder()
+				.firstName("Fernando")
+				.lastName("Salas")
+				.email("fernando@gmail.com")
+				.build());
+
+		assertThat(studentService.getStudentById(savedStudent.getId()))
+				.map(StudentView::email)
+				.contains("fernando@gmail.com");
+	}
+
+}
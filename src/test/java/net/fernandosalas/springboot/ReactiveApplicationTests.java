@@ -0,0 +1,72 @@
+package net.fernandosalas.springboot;
+
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.StudentService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+class ReactiveApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void givenReactiveProfile_whenStarted_thenNoJdbcOrJpaBeans() {
+		assertThat(context.getBeanNamesForType(DataSource.class)).isEmpty();
+		assertThat(context.getBeanNamesForType(StudentService.class)).isEmpty();
+		assertThat(context.containsBean("entityManagerFactory")).isFalse();
+	}
+
+	@Test
+	void givenTakenEmail_whenCreatingAndUpdating_thenConflict() {
+		webTestClient.post().uri("/api/students")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(student("Fernando", "fernando.reactive@gmail.com"))
+				.exchange()
+				.expectStatus().isCreated();
+		Student claudia = webTestClient.post().uri("/api/students")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(student("Claudia", "claudia.reactive@gmail.com"))
+				.exchange()
+				.expectStatus().isCreated()
+				.expectBody(Student.class)
+				.returnResult()
+				.getResponseBody();
+
+		webTestClient.post().uri("/api/students")
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(student("Other", "fernando.reactive@gmail.com"))
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+		webTestClient.put().uri("/api/students/{id}", claudia.getId())
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(student("Claudia", "fernando.reactive@gmail.com"))
+				.exchange()
+				.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+	}
+
+	private static Student student(String firstName, String email) {
+		return Student.builder()
+				.firstName(firstName)
+				.lastName("Salas")
+				.email(email)
+				.build();
+	}
+
+}
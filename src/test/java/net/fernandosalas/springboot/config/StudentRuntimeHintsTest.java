@@ -0,0 +1,48 @@
+package net.fernandosalas.springboot.config;
+
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StudentRuntimeHintsTest {
+    private RuntimeHints hints;
+
+    @BeforeEach
+    public void setup() {
+        hints = new RuntimeHints();
+        new StudentRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @DisplayName("JUnit test for entity and payload reflection hints")
+    @Test
+    public void givenRegisteredHints_whenCheckingPayloadTypes_thenReflectionIsRegistered() {
+        // then - verify the output
+        assertThat(RuntimeHintsPredicates.reflection().onType(Student.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(StudentWriteStatus.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(StudentRepository.class)
+                .withMemberCategory(MemberCategory.INTROSPECT_PUBLIC_METHODS)).accepts(hints);
+    }
+
+    @DisplayName("JUnit test for datasource proxy hints")
+    @Test
+    public void givenRegisteredHints_whenCheckingJdbcProxies_thenProxiesAreRegistered() {
+        // then - verify the output
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, Connection.class))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.proxies().forInterfaces(ProxyJdbcObject.class, PreparedStatement.class))
+                .accepts(hints);
+    }
+}
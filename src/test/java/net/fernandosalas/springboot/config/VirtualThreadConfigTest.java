@@ -0,0 +1,94 @@
+package net.fernandosalas.springboot.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class VirtualThreadConfigTest {
+
+    @DisplayName("JUnit test for the connection pool sized to the carrier threads")
+    @Test
+    public void givenNoPoolSize_whenPostProcessingHikari_thenPoolMatchesCarrierCount() {
+        //given - precondition or setup
+        BeanPostProcessor postProcessor = VirtualThreadConfig.carrierSizedConnectionPool(new MockEnvironment());
+
+        // when - action or the behavior we are going to test
+        try (HikariDataSource dataSource = embeddedH2()) {
+            postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+            // then - verify the output
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(VirtualThreadConfig.carrierCount());
+            assertThat(dataSource.getMinimumIdle()).isEqualTo(VirtualThreadConfig.carrierCount());
+        }
+    }
+
+    @DisplayName("JUnit test for an explicit pool size with virtual threads")
+    @Test
+    public void givenExplicitPoolSize_whenPostProcessingHikari_thenPoolIsLeftAlone() {
+        //given - precondition or setup
+        BeanPostProcessor postProcessor = VirtualThreadConfig.carrierSizedConnectionPool(new MockEnvironment()
+                .withProperty("spring.datasource.hikari.maximum-pool-size", "3"));
+
+        // when - action or the behavior we are going to test
+        try (HikariDataSource dataSource = embeddedH2()) {
+            dataSource.setMaximumPoolSize(3);
+            postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+            // then - verify the output
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(3);
+        }
+    }
+
+    @DisplayName("JUnit test for a database server with virtual threads")
+    @Test
+    public void givenDatabaseServer_whenPostProcessingHikari_thenPoolIsLeftAlone() {
+        //given - precondition or setup
+        BeanPostProcessor postProcessor = VirtualThreadConfig.carrierSizedConnectionPool(new MockEnvironment());
+
+        // when - action or the behavior we are going to test
+        try (HikariDataSource dataSource = new HikariDataSource()) {
+            dataSource.setDriverClassName("org.h2.Driver");
+            dataSource.setJdbcUrl("jdbc:h2:tcp://localhost/students");
+            int poolSize = dataSource.getMaximumPoolSize();
+            postProcessor.postProcessBeforeInitialization(dataSource, "dataSource");
+
+            // then - verify the output
+            assertThat(dataSource.getMaximumPoolSize()).isEqualTo(poolSize);
+        }
+    }
+
+    @DisplayName("JUnit test for the connection pool with read replicas or sharding")
+    @Test
+    public void givenReplicasOrSharding_whenCheckingSingleDataSource_thenConditionDoesNotMatch() {
+        //given - precondition or setup
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withUserConfiguration(SingleDataSourceOnly.class);
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        runner.run(context -> assertThat(context).hasSingleBean(SingleDataSourceOnly.class));
+        runner.withPropertyValues("student.sharding.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(SingleDataSourceOnly.class));
+        runner.withPropertyValues("student.datasource.replicas.enabled=true")
+                .run(context -> assertThat(context).doesNotHaveBean(SingleDataSourceOnly.class));
+    }
+
+    private static HikariDataSource embeddedH2() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setJdbcUrl("jdbc:h2:mem:students");
+        return dataSource;
+    }
+
+    @Configuration
+    @Conditional(VirtualThreadConfig.SingleDataSourceCondition.class)
+    static class SingleDataSourceOnly {
+    }
+}
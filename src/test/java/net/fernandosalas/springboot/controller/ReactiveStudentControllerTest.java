@@ -0,0 +1,147 @@
+package net.fernandosalas.springboot.controller;
+
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.ReactiveStudentService;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.*;
+
+@WebFluxTest(controllers = ReactiveStudentController.class)
+public class ReactiveStudentControllerTest {
+
+    private static final String API_PATH = "/api/students";
+    @Autowired
+    private WebTestClient webTestClient;
+    @MockBean
+    private ReactiveStudentService reactiveStudentService;
+
+    private final Student student = Student.builder()
+            .id(1L)
+            .firstName("Fernando")
+            .lastName("Salas")
+            .email("fernando@gmail.com")
+            .version(2L)
+            .build();
+
+    @Test
+    public void givenStudentObject_whenCreateStudent_thenReturnSavedStudent() {
+        //given - precondition or setup
+        given(reactiveStudentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willReturn(Mono.just(student));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.post().uri(API_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(student)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.email").isEqualTo(student.getEmail());
+    }
+
+    @Test
+    public void givenStudentId_whenGetStudentById_thenReturnStudentWithETag() {
+        //given - precondition or setup
+        given(reactiveStudentService.getStudentById(1L)).willReturn(Mono.just(student));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.get().uri(API_PATH + "/{id}", 1L)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody()
+                .jsonPath("$.firstName").isEqualTo(student.getFirstName());
+    }
+
+    @Test
+    public void givenUnknownStudentId_whenGetStudentById_thenReturnNotFound() {
+        //given - precondition or setup
+        given(reactiveStudentService.getStudentById(1L)).willReturn(Mono.empty());
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.get().uri(API_PATH + "/{id}", 1L)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void givenStudentPage_whenGetStudents_thenReturnPageWithNextCursor() {
+        //given - precondition or setup
+        given(reactiveStudentService.getStudents(0L, 1))
+                .willReturn(Mono.just(new StudentPage(List.of(StudentView.of(student)), 1L)));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.get().uri(uriBuilder -> uriBuilder.path(API_PATH).queryParam("size", 1).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].email").isEqualTo(student.getEmail())
+                .jsonPath("$.nextCursor").isEqualTo(1);
+    }
+
+    @Test
+    public void givenStudents_whenExportStudents_thenStreamNewlineDelimitedJson() {
+        //given - precondition or setup
+        given(reactiveStudentService.exportStudents()).willReturn(Flux.just(student));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.get().uri(API_PATH + "/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Student.class).hasSize(1);
+    }
+
+    @Test
+    public void givenTakenEmail_whenCreateStudent_thenReturnConflict() {
+        //given - precondition or setup
+        given(reactiveStudentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willReturn(Mono.error(new DuplicateKeyException("Email fernando@gmail.com is already taken")));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.post().uri(API_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(student)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void givenEmailOfAnotherStudent_whenUpdateStudent_thenReturnConflict() {
+        //given - precondition or setup
+        given(reactiveStudentService.updateStudent(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Student.class),
+                ArgumentMatchers.isNull()))
+                .willReturn(Mono.error(new DuplicateKeyException("Email fernando@gmail.com is already taken")));
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        webTestClient.put().uri(API_PATH + "/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(student)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+}
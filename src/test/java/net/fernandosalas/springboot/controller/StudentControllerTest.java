@@ -1,28 +1,49 @@
 package net.fernandosalas.springboot.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import net.fernandosalas.springboot.config.StudentIdempotencyProperties;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
 import net.fernandosalas.springboot.entity.Student;
 import net.fernandosalas.springboot.service.StudentService;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.*;
 import static org.mockito.BDDMockito.*;
 
 @WebMvcTest
+@Import(IdempotencyKeyStore.class)
+@EnableConfigurationProperties(StudentIdempotencyProperties.class)
 public class StudentControllerTest {
 
     private static final String API_PATH = "/api/students";
@@ -62,5 +83,625 @@ public class StudentControllerTest {
                 .andExpect(jsonPath("$.email", is(student.getEmail())));
     }
 
+    @Test
+    public void givenStudentList_whenCreateStudents_thenReturnResultPerItem() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        Student invalidStudent = Student.builder()
+                .firstName("Claudia")
+                .build();
+        given(studentService.saveStudents(ArgumentMatchers.anyList()))
+                .willReturn(List.of(StudentBatchResult.created(0, 1L),
+                        StudentBatchResult.failed(1, null, "firstName, lastName and email are required")));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH + "/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(student, invalidStudent))));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id", is(1)))
+                .andExpect(jsonPath("$[1].status", is("FAILED")));
+    }
+
+    @Test
+    public void givenUnknownEmail_whenGetStudentByEmail_thenReturnNotFound() throws Exception {
+        //given - precondition or setup
+        given(studentService.getStudentByEmail("nobody@gmail.com")).willReturn(Optional.empty());
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH).param("email", "nobody@gmail.com"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenIdempotencyKey_whenCreateStudentIsRetried_thenReplayFirstResponse() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willAnswer((invocationOnMock) -> {
+                    Student saved = invocationOnMock.getArgument(0);
+                    saved.setId(7L);
+                    return saved;
+                });
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post(API_PATH)
+                        .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isCreated());
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyKeyStore.IDEMPOTENT_REPLAYED, "true"))
+                .andExpect(jsonPath("$.id", is(7)));
+        verify(studentService, times(1)).saveStudent(ArgumentMatchers.any(Student.class));
+    }
+
+    @Test
+    public void givenReusedIdempotencyKey_whenCreateDifferentStudent_thenReturnUnprocessableEntity() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        Student other = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        given(studentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willAnswer((invocationOnMock) -> invocationOnMock.getArgument(0));
+        String key = UUID.randomUUID().toString();
+        mockMvc.perform(post(API_PATH)
+                        .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isCreated());
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(other)));
+
+        // then - verify the output
+        response.andExpect(status().isUnprocessableEntity());
+        verify(studentService, times(1)).saveStudent(ArgumentMatchers.any(Student.class));
+    }
+
+    @Test
+    public void givenTakenEmail_whenCreateStudent_thenReturnConflict() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willThrow(new DuplicateKeyException("Email fernando@gmail.com is already taken"));
+        String key = UUID.randomUUID().toString();
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output, the failure is not kept so a retry runs again
+        response.andExpect(status().isConflict());
+        mockMvc.perform(post(API_PATH)
+                        .header(IdempotencyKeyStore.IDEMPOTENCY_KEY, key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(student)))
+                .andExpect(status().isConflict());
+        verify(studentService, times(2)).saveStudent(ArgumentMatchers.any(Student.class));
+    }
+
+    @Test
+    public void givenStudentPage_whenGetStudents_thenReturnPageWithNextCursor() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(5L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.getStudents(4L, 1))
+                .willReturn(new StudentPage(List.of(StudentView.of(student)), 5L));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH)
+                .param("size", "1")
+                .param("after", "4"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].email", is(student.getEmail())))
+                .andExpect(jsonPath("$.nextCursor", is(5)));
+    }
+
+    @Test
+    public void givenStudentPage_whenGetStudentsAsCbor_thenReturnCborPage() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(5L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.getStudents(4L, 1))
+                .willReturn(new StudentPage(List.of(StudentView.of(student)), 5L));
+
+        // when - action or the behavior we are going to test
+        MvcResult result = mockMvc.perform(get(API_PATH)
+                        .param("size", "1")
+                        .param("after", "4")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        // then - verify the output
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getContentType()).isEqualTo(MediaType.APPLICATION_CBOR_VALUE);
+        JsonNode page = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertThat(page.get("content").size()).isEqualTo(1);
+        assertThat(page.get("content").get(0).get("email").asText()).isEqualTo(student.getEmail());
+        assertThat(page.get("content").get(0).has("version")).isFalse();
+        assertThat(page.get("nextCursor").asLong()).isEqualTo(5L);
+    }
+
+    @Test
+    public void givenCborStudent_whenCreateStudent_thenReturnSavedStudent() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.saveStudent(ArgumentMatchers.any(Student.class)))
+                .willAnswer((invocationOnMock) -> invocationOnMock.getArgument(0));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .contentType(MediaType.APPLICATION_CBOR)
+                .content(new CBORMapper().writeValueAsBytes(student)));
+
+        // then - verify the output, JSON stays the default response format
+        response.andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.email", is(student.getEmail())));
+    }
+
+    @Test
+    public void givenStudents_whenExportStudentsAsCbor_thenStreamCborSequence() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        Student student2 = Student.builder()
+                .id(2L)
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        willAnswer(invocationOnMock -> {
+            Consumer<StudentView> consumer = invocationOnMock.getArgument(0);
+            consumer.accept(StudentView.of(student));
+            consumer.accept(StudentView.of(student2));
+            return null;
+        }).given(studentService).exportStudents(ArgumentMatchers.any());
+
+        // when - action or the behavior we are going to test
+        MvcResult result = mockMvc.perform(get(API_PATH + "/export")
+                        .accept(MediaType.parseMediaType(StudentController.APPLICATION_CBOR_SEQ_VALUE)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then - verify the output
+        MvcResult exported = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(StudentController.APPLICATION_CBOR_SEQ_VALUE))
+                .andReturn();
+        List<JsonNode> students = new CBORMapper().readerFor(JsonNode.class)
+                .<JsonNode>readValues(exported.getResponse().getContentAsByteArray())
+                .readAll();
+        assertThat(students).extracting(node -> node.get("email").asText())
+                .containsExactly(student.getEmail(), student2.getEmail());
+    }
+
+    @Test
+    public void givenUnchangedPage_whenGetStudentsWithIfNoneMatch_thenReturnNotModified() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(5L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        StudentPage page = new StudentPage(List.of(StudentView.of(student)), 5L);
+        given(studentService.getStudents(4L, 1)).willReturn(page);
+        String eTag = mockMvc.perform(get(API_PATH).param("size", "1").param("after", "4"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH)
+                .param("size", "1")
+                .param("after", "4")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, StudentController.pageTag(page)))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void givenUpdatedStudent_whenGetStudents_thenReturnDifferentETag() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(5L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        StudentPage page = new StudentPage(List.of(StudentView.of(student)), 5L);
+        student.setVersion(1L);
+        StudentPage updatedPage = new StudentPage(List.of(StudentView.of(student)), 5L);
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThat(StudentController.pageTag(page)).startsWith("W/\"");
+        assertThat(StudentController.pageTag(updatedPage)).isNotEqualTo(StudentController.pageTag(page));
+    }
+
+    @Test
+    public void givenStudents_whenExportStudents_thenStreamNewlineDelimitedJson() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        Student student2 = Student.builder()
+                .id(2L)
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        willAnswer(invocationOnMock -> {
+            Consumer<StudentView> consumer = invocationOnMock.getArgument(0);
+            consumer.accept(StudentView.of(student));
+            consumer.accept(StudentView.of(student2));
+            return null;
+        }).given(studentService).exportStudents(ArgumentMatchers.any());
+
+        // when - action or the behavior we are going to test
+        MvcResult result = mockMvc.perform(get(API_PATH + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then - verify the output
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(student) + "\n"
+                        + objectMapper.writeValueAsString(student2) + "\n"));
+    }
+
+    @Test
+    public void givenWildcardAccept_whenExportStudents_thenStreamNewlineDelimitedJson() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        willAnswer(invocationOnMock -> {
+            Consumer<StudentView> consumer = invocationOnMock.getArgument(0);
+            consumer.accept(StudentView.of(student));
+            return null;
+        }).given(studentService).exportStudents(ArgumentMatchers.any());
+
+        // when - action or the behavior we are going to test
+        MvcResult result = mockMvc.perform(get(API_PATH + "/export")
+                        .header(HttpHeaders.ACCEPT, "*/*"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then - verify the output
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(student) + "\n"));
+    }
+
+    @Test
+    public void givenStudentId_whenGetStudentById_thenReturnStudentWithETag() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .version(3L)
+                .build();
+        given(studentService.getStudentById(1L)).willReturn(Optional.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH + "/{id}", 1L));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andExpect(jsonPath("$.email", is(student.getEmail())))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    public void givenCurrentETag_whenGetStudentById_thenReturnNotModified() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .version(3L)
+                .updatedAt(Instant.parse("2024-01-15T10:00:00Z"))
+                .build();
+        given(studentService.getStudentById(1L)).willReturn(Optional.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH + "/{id}", 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\""));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Mon, 15 Jan 2024 10:00:00 GMT"))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void givenUnchangedSince_whenGetStudentById_thenReturnNotModified() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .version(3L)
+                .updatedAt(Instant.parse("2024-01-15T10:00:00Z"))
+                .build();
+        given(studentService.getStudentById(1L)).willReturn(Optional.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH + "/{id}", 1L)
+                .header(HttpHeaders.IF_MODIFIED_SINCE, "Mon, 15 Jan 2024 10:00:00 GMT"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void givenEmailOfAnotherStudent_whenUpdateStudent_thenReturnConflict() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        given(studentService.updateStudent(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Student.class),
+                ArgumentMatchers.isNull()))
+                .willThrow(new DuplicateKeyException("Email claudia@gmail.com is already taken"));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(put(API_PATH + "/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void givenStaleETag_whenUpdateStudent_thenReturnPreconditionFailed() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        given(studentService.updateStudent(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Student.class),
+                ArgumentMatchers.eq(2L)))
+                .willThrow(new OptimisticLockingFailureException("stale"));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(put(API_PATH + "/{id}", 1L)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void givenUnknownStudentId_whenUpdateStudent_thenReturnNotFound() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        given(studentService.updateStudent(ArgumentMatchers.eq(1L), ArgumentMatchers.any(Student.class),
+                ArgumentMatchers.isNull()))
+                .willReturn(Optional.empty());
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(put(API_PATH + "/{id}", 1L)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
 
+    @Test
+    public void givenUnknownStudentId_whenDeleteStudent_thenReturnNotFound() throws Exception {
+        //given - precondition or setup
+        given(studentService.deleteStudent(1L)).willReturn(false);
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(delete(API_PATH + "/{id}", 1L));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void givenFirstNameAndLastName_whenGetStudentsByName_thenReturnStudentList() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.getStudentsByName("Fernando", "Salas", 10))
+                .willReturn(List.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH)
+                .param("firstName", "Fernando")
+                .param("lastName", "Salas")
+                .param("size", "10"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].email", is(student.getEmail())));
+    }
+
+    @Test
+    public void givenWriteBehind_whenCreateStudent_thenReturnAcceptedWithTrackingId() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        UUID trackingId = UUID.randomUUID();
+        given(studentService.isWriteBehind()).willReturn(true);
+        given(studentService.submitStudent(ArgumentMatchers.any(Student.class)))
+                .willReturn(StudentWriteStatus.pending(trackingId));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, API_PATH + "/writes/" + trackingId))
+                .andExpect(jsonPath("$.trackingId", is(trackingId.toString())))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+        verify(studentService, never()).saveStudent(ArgumentMatchers.any(Student.class));
+    }
+
+    @Test
+    public void givenFullWriteBehindQueue_whenCreateStudent_thenReturnTooManyRequests() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        given(studentService.isWriteBehind()).willReturn(true);
+        given(studentService.submitStudent(ArgumentMatchers.any(Student.class)))
+                .willThrow(new RejectedExecutionException("Student write queue is full"));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(post(API_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(student)));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+    }
+
+    @Test
+    public void givenWrittenStudent_whenGetWriteStatus_thenReturnStatus() throws Exception {
+        //given - precondition or setup
+        UUID trackingId = UUID.randomUUID();
+        given(studentService.getWriteStatus(trackingId))
+                .willReturn(Optional.of(StudentWriteStatus.written(trackingId, 1L)));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH + "/writes/{trackingId}", trackingId));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("WRITTEN")))
+                .andExpect(jsonPath("$.id", is(1)));
+    }
+
+    @Test
+    public void givenSearchQuery_whenSearchStudents_thenReturnRankedPage() throws Exception {
+        //given - precondition or setup
+        StudentView student = new StudentView(1L, "Fernando", "Salas", "fernando@gmail.com", 0, null);
+        given(studentService.searchStudents("fer sal", 0, 10))
+                .willReturn(new StudentSearchPage(List.of(student), 0, false));
+
+        // when - action or the behavior we are going to test
+        ResultActions response = mockMvc.perform(get(API_PATH + "/search").param("q", "fer sal"));
+
+        // then - verify the output
+        response.andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()", is(1)))
+                .andExpect(jsonPath("$.content[0].email", is(student.email())))
+                .andExpect(jsonPath("$.hasNext", is(false)));
+    }
 }
@@ -0,0 +1,84 @@
+package net.fernandosalas.springboot.datasource;
+
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.assertj.core.api.AbstractAssert;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+// assertions over the statements a block of code issues, e.g.
+// QueryAssert.assertThatQueries(dataSource, () -> service.getStudents(0, 50)).hasAtMostStatements(1).hasNoFullScans();
+public class QueryAssert extends AbstractAssert<QueryAssert, List<RecordedQuery>> {
+
+    private final DataSource dataSource;
+
+    private QueryAssert(List<RecordedQuery> queries, DataSource dataSource) {
+        super(queries, QueryAssert.class);
+        this.dataSource = dataSource;
+    }
+
+    public static QueryAssert assertThatQueries(DataSource dataSource, Runnable action) {
+        return new QueryAssert(QueryRecorder.record(action), dataSource);
+    }
+
+    public QueryAssert hasStatementCount(int expected) {
+        if (actual.size() != expected) {
+            failWithMessage("Expected %d statements but %d were executed:%n%s", expected, actual.size(), describe());
+        }
+        return this;
+    }
+
+    public QueryAssert hasAtMostStatements(int max) {
+        if (actual.size() > max) {
+            failWithMessage("Expected at most %d statements but %d were executed:%n%s", max, actual.size(), describe());
+        }
+        return this;
+    }
+
+    // re-runs every recorded select under EXPLAIN with the same binds and fails on a table scan
+    public QueryAssert hasNoFullScans() {
+        for (RecordedQuery query : actual) {
+            if (!query.isSelect()) {
+                continue;
+            }
+            String plan = explain(query);
+            if (plan.contains(".tableScan")) {
+                failWithMessage("Expected no full table scans but the plan for%n  %s%nwas%n  %s", query.sql(), plan);
+            }
+        }
+        return this;
+    }
+
+    private String explain(RecordedQuery query) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement statement = connection.prepareStatement("explain " + query.sql())) {
+            for (ParameterSetOperation parameter : query.parameters()) {
+                parameter.getMethod().invoke(statement, parameter.getArgs());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                StringBuilder plan = new StringBuilder();
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
+                return plan.toString();
+            }
+        } catch (SQLException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not explain " + query.sql(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private String describe() {
+        StringBuilder description = new StringBuilder();
+        for (RecordedQuery query : actual) {
+            description.append("  ").append(query.sql()).append(" [").append(query.bindCount()).append(" binds]").append(System.lineSeparator());
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,62 @@
+package net.fernandosalas.springboot.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.StudentService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+public class StudentMetricsAspectTest {
+    private SimpleMeterRegistry meterRegistry;
+    private StudentService studentService;
+    private StudentService instrumentedStudentService;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        studentService = mock(StudentService.class);
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(studentService);
+        proxyFactory.addAspect(new StudentMetricsAspect(meterRegistry));
+        instrumentedStudentService = proxyFactory.getProxy();
+    }
+
+    @DisplayName("JUnit test for timing a service call and recording its rows")
+    @Test
+    public void givenStudentList_whenGetAllStudents_thenRecordTimerAndRows() {
+        //given - precondition or setup
+        given(studentService.getAllStudents())
+                .willReturn(List.of(StudentView.of(new Student()), StudentView.of(new Student())));
+
+        // when - action or the behavior we are going to test
+        instrumentedStudentService.getAllStudents();
+
+        // then - verify the output
+        assertThat(meterRegistry.get("student.calls").tag("method", "getAllStudents").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("student.rows.returned").tag("layer", "service").summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for counting a failed service call")
+    @Test
+    public void givenFailingCall_whenGetStudentById_thenCountError() {
+        //given - precondition or setup
+        given(studentService.getStudentById(1L)).willThrow(new IllegalStateException("down"));
+
+        // when - action or the behavior we are going to test
+        assertThatThrownBy(() -> instrumentedStudentService.getStudentById(1L))
+                .isInstanceOf(IllegalStateException.class);
+
+        // then - verify the output
+        assertThat(meterRegistry.get("student.calls.errors").tag("method", "getStudentById").counter().count())
+                .isEqualTo(1);
+    }
+}
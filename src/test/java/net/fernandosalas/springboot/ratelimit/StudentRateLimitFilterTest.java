@@ -0,0 +1,168 @@
+package net.fernandosalas.springboot.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.fernandosalas.springboot.config.StudentRateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StudentRateLimitFilterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private MeterRegistry meterRegistry;
+    private StudentRateLimitFilter studentRateLimitFilter;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        StudentRateLimitProperties properties = new StudentRateLimitProperties();
+        StudentRateLimitProperties.Limits list = new StudentRateLimitProperties.Limits();
+        list.setRequestsPerSecond(1);
+        list.setBurst(1);
+        properties.getEndpoints().put(StudentEndpoint.LIST, list);
+        // MockHttpServletRequest comes from 127.0.0.1, standing in for the gateway
+        properties.getTrustedProxies().add("127.0.0.1");
+        studentRateLimitFilter = new StudentRateLimitFilter(properties, meterRegistry);
+    }
+
+    @DisplayName("JUnit test for the token bucket")
+    @Test
+    public void givenEmptiedBucket_whenAcquiring_thenWaitUntilTheNextToken() {
+        //given - precondition or setup
+        TokenBucket bucket = new TokenBucket(2, 2, 0);
+
+        // when - action or the behavior we are going to test
+        long first = bucket.tryAcquire(0);
+        long second = bucket.tryAcquire(0);
+        long third = bucket.tryAcquire(0);
+
+        // then - verify the output
+        assertThat(first).isZero();
+        assertThat(second).isZero();
+        assertThat(third).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(SECOND / 2)).isZero();
+    }
+
+    @DisplayName("JUnit test for rejecting a client over its rate")
+    @Test
+    public void givenClientOverItsRate_whenRequesting_thenOtherClientsAndEndpointsStillPass() throws Exception {
+        //given - precondition or setup
+        MockHttpServletResponse first = filter(request("GET", "/api/students", "bulk"));
+
+        // when - action or the behavior we are going to test
+        MockHttpServletResponse throttled = filter(request("GET", "/api/students", "bulk"));
+        MockHttpServletResponse otherClient = filter(request("GET", "/api/students", "reports"));
+        MockHttpServletResponse lookup = filter(request("GET", "/api/students/1", "bulk"));
+
+        // then - verify the output
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        assertThat(throttled.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(otherClient.getStatus()).isEqualTo(200);
+        assertThat(lookup.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("student.http.rejected")
+                .tag("endpoint", "list")
+                .tag("reason", "rate")
+                .counter()
+                .count()).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for ignoring the client header from untrusted addresses")
+    @Test
+    public void givenUntrustedAddress_whenRotatingClientHeader_thenLimitedByAddress() throws Exception {
+        //given - precondition or setup
+        MockHttpServletRequest first = request("GET", "/api/students", "bulk-1");
+        first.setRemoteAddr("203.0.113.7");
+        MockHttpServletRequest rotated = request("GET", "/api/students", "bulk-2");
+        rotated.setRemoteAddr("203.0.113.7");
+        MockHttpServletRequest otherAddress = request("GET", "/api/students", "bulk-1");
+        otherAddress.setRemoteAddr("203.0.113.8");
+
+        // when - action or the behavior we are going to test
+        MockHttpServletResponse allowed = filter(first);
+        MockHttpServletResponse throttled = filter(rotated);
+        MockHttpServletResponse otherClient = filter(otherAddress);
+
+        // then - verify the output
+        assertThat(allowed.getStatus()).isEqualTo(200);
+        assertThat(throttled.getStatus()).isEqualTo(429);
+        assertThat(otherClient.getStatus()).isEqualTo(200);
+    }
+
+    @DisplayName("JUnit test for endpoint classification")
+    @Test
+    public void givenRequests_whenClassifying_thenGroupByCost() {
+        // when - action or the behavior we are going to test, then - verify the output
+        assertThat(StudentEndpoint.of(request("GET", "/api/students", null))).isEqualTo(StudentEndpoint.LIST);
+        assertThat(StudentEndpoint.of(request("GET", "/api/students/export", null))).isEqualTo(StudentEndpoint.LIST);
+        assertThat(StudentEndpoint.of(request("GET", "/api/students/7", null))).isEqualTo(StudentEndpoint.LOOKUP);
+        assertThat(StudentEndpoint.of(request("GET", "/api/students/search", null))).isEqualTo(StudentEndpoint.SEARCH);
+        assertThat(StudentEndpoint.of(request("DELETE", "/api/students/7", null))).isEqualTo(StudentEndpoint.WRITE);
+        MockHttpServletRequest byEmail = request("GET", "/api/students", null);
+        byEmail.setParameter("email", "fernando@gmail.com");
+        assertThat(StudentEndpoint.of(byEmail)).isEqualTo(StudentEndpoint.LOOKUP);
+    }
+
+    @DisplayName("JUnit test for the adaptive concurrency limit")
+    @Test
+    public void givenRisingLatency_whenWindowsClose_thenConcurrencyLimitShrinks() {
+        //given - precondition or setup
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 2, 100, 0);
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            now = runWindow(limit, now, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        int unloaded = limit.getLimit();
+
+        // when - action or the behavior we are going to test
+        for (int i = 0; i < 5; i++) {
+            now = runWindow(limit, now, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // then - verify the output
+        assertThat(unloaded).isGreaterThan(20);
+        assertThat(limit.getLimit()).isLessThan(unloaded);
+        for (int i = 0; i < limit.getLimit(); i++) {
+            assertThat(limit.tryAcquire()).isTrue();
+        }
+        assertThat(limit.tryAcquire()).isFalse();
+    }
+
+    // five rounds at the full limit, the last release closes the window
+    private static long runWindow(AdaptiveConcurrencyLimit limit, long start, long rttNanos) {
+        for (int round = 1; round <= 5; round++) {
+            long now = start + round * SECOND / 5;
+            int permits = 0;
+            while (limit.tryAcquire()) {
+                permits++;
+            }
+            for (int i = 0; i < permits; i++) {
+                limit.release(rttNanos, now);
+            }
+        }
+        return start + SECOND;
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        studentRateLimitFilter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (client != null) {
+            request.addHeader("X-Client-Id", client);
+        }
+        return request;
+    }
+}
@@ -1,24 +1,34 @@
 package net.fernandosalas.springboot.repository;
 
+import net.fernandosalas.springboot.config.DataSourceProxyConfig;
+import net.fernandosalas.springboot.dto.StudentView;
 import net.fernandosalas.springboot.entity.Student;
 
+import static net.fernandosalas.springboot.datasource.QueryAssert.assertThatQueries;
 import static org.assertj.core.api.Assertions.*;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
 
-
+import javax.sql.DataSource;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 @DataJpaTest
+@Import(DataSourceProxyConfig.class)
 public class StudentRepositoryTest {
     @Autowired
     private StudentRepository studentRepository;
 
+    @Autowired
+    private DataSource dataSource;
+
     // JUnit test for save student operation | given-when-then
     @DisplayName("JUnit test for save student operation")
     @Test
@@ -70,6 +80,37 @@ public class StudentRepositoryTest {
     }
 
 
+    //JUnit test for keyset page operation
+    @DisplayName("JUnit test for keyset page operation")
+    @Test
+    public void givenStudentList_whenFindByIdGreaterThan_thenReturnNextPageInIdOrder() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+
+        Student student2 = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+
+        Student student3 = Student.builder()
+                .firstName("Lucia")
+                .lastName("Perez")
+                .email("lucia@gmail.com")
+                .build();
+        studentRepository.saveAll(Arrays.asList(student, student2, student3));
+
+        // when - action or the behavior we are going to test
+        List<StudentView> page = studentRepository.findViewsAfter(student.getId(), PageRequest.of(0, 1));
+
+        // then - verify the output
+        assertThat(page).containsExactly(StudentView.of(student2));
+    }
+
     //JUnit test to get student by email operation
     @DisplayName("JUnit test to get student by email operation")
     @Test
@@ -91,6 +132,35 @@ public class StudentRepositoryTest {
         assertThat(savedStudent.getEmail()).isEqualTo(student.getEmail());
     }
 
+    //JUnit test for single statement update
+    @DisplayName("JUnit test for single statement update")
+    @Test
+    public void givenStudentObject_whenUpdateStudentWithCurrentVersion_thenUpdateAndIncrementVersion() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        studentRepository.save(student);
+
+        Instant updatedAt = Instant.parse("2024-01-15T10:00:00Z");
+
+        // when - action or the behavior we are going to test
+        int updated = studentRepository.updateStudent(student.getId(), "Claudia", "Ramos",
+                "claudia@gmail.com", student.getVersion(), updatedAt);
+        int stale = studentRepository.updateStudent(student.getId(), "Lucia", "Perez",
+                "lucia@gmail.com", student.getVersion(), updatedAt.plusSeconds(1));
+
+        // then - verify the output
+        Student updatedStudent = studentRepository.findById(student.getId()).get();
+        assertThat(updated).isEqualTo(1);
+        assertThat(stale).isEqualTo(0);
+        assertThat(updatedStudent.getFirstName()).isEqualTo("Claudia");
+        assertThat(updatedStudent.getVersion()).isEqualTo(student.getVersion() + 1);
+        assertThat(updatedStudent.getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
     //JUnit test for deleting student
     @DisplayName("JUnit test for deleting student")
     @Test
@@ -113,6 +183,59 @@ public class StudentRepositoryTest {
                 .isEmpty();
     }
 
+    //JUnit test for deleting students by ids
+    @DisplayName("JUnit test for deleting students by ids")
+    @Test
+    public void givenStudentList_whenDeletingStudentsByIds_thenReturnDeletedCount() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+
+        Student student2 = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        studentRepository.saveAll(Arrays.asList(student, student2));
+
+        // when - action or the behavior we are going to test
+        int deleted = studentRepository.deleteStudentsByIds(List.of(student.getId(), student2.getId() + 100));
+
+        // then - verify the output
+        assertThat(deleted).isEqualTo(1);
+        assertThat(studentRepository.findById(student.getId())).isEmpty();
+        assertThat(studentRepository.findById(student2.getId())).isPresent();
+    }
+
+    //JUnit test for name lookups bounded by the page size
+    @DisplayName("JUnit test for name lookups bounded by the page size")
+    @Test
+    public void givenStudentsWithSameName_whenUsingNamedJPQLWithPage_thenReturnBoundedListInIdOrder() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+
+        Student student2 = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando.salas@gmail.com")
+                .build();
+        studentRepository.saveAll(Arrays.asList(student, student2));
+
+        // when - action or the behavior we are going to test
+        List<StudentView> savedStudents = studentRepository.findByJPQLNamedParams("Fernando", "Salas",
+                PageRequest.of(0, 1));
+
+        // then - verify the output
+        assertThat(savedStudents).containsExactly(StudentView.of(student));
+    }
+
     //JUnit test for custom query using JPQL with index
     @DisplayName("JUnit test for custom query using JPQL with index")
     @Test
@@ -128,11 +251,12 @@ public class StudentRepositoryTest {
         // when - action or the behavior we are going to test
         String name = "Fernando";
         String lastName = "Salas";
-        Student savedStudent = studentRepository.findByJPQLIndexParams(name, lastName);
+        List<StudentView> savedStudents = studentRepository.findByJPQLIndexParams(name, lastName, PageRequest.of(0, 10));
 
         // then - verify the output
-        assertThat(savedStudent.getFirstName()).isEqualTo(student.getFirstName());
-        assertThat(savedStudent.getLastName()).isEqualTo(student.getLastName());
+        assertThat(savedStudents).hasSize(1);
+        assertThat(savedStudents.get(0).firstName()).isEqualTo(student.getFirstName());
+        assertThat(savedStudents.get(0).lastName()).isEqualTo(student.getLastName());
     }
 
     //JUnit test for custom query using JPQL with named param
@@ -150,11 +274,12 @@ public class StudentRepositoryTest {
         // when - action or the behavior we are going to test
         String name = "Fernando";
         String lastName = "Salas";
-        Student savedStudent = studentRepository.findByJPQLNamedParams(name, lastName);
+        List<StudentView> savedStudents = studentRepository.findByJPQLNamedParams(name, lastName, PageRequest.of(0, 10));
 
         // then - verify the output
-        assertThat(savedStudent.getFirstName()).isEqualTo(student.getFirstName());
-        assertThat(savedStudent.getLastName()).isEqualTo(student.getLastName());
+        assertThat(savedStudents).hasSize(1);
+        assertThat(savedStudents.get(0).firstName()).isEqualTo(student.getFirstName());
+        assertThat(savedStudents.get(0).lastName()).isEqualTo(student.getLastName());
     }
 
     //JUnit test for custom query using NATIVE SQL with index params
@@ -170,7 +295,9 @@ public class StudentRepositoryTest {
 
         String name = "Fernando";
         String lastName = "Salas";
-        Student studentDB = studentRepository.findByNativeIndexParams(name, lastName);
+        List<Student> studentsDB = studentRepository.findByNativeIndexParams(name, lastName, PageRequest.of(0, 10));
+        assertThat(studentsDB).hasSize(1);
+        Student studentDB = studentsDB.get(0);
 
         assertThat(studentDB.getFirstName())
                 .as("First name should match")
@@ -193,7 +320,9 @@ public class StudentRepositoryTest {
 
         String name = "Fernando";
         String lastName = "Salas";
-        Student studentDB = studentRepository.findByNativeNamedParams(name, lastName);
+        List<Student> studentsDB = studentRepository.findByNativeNamedParams(name, lastName, PageRequest.of(0, 10));
+        assertThat(studentsDB).hasSize(1);
+        Student studentDB = studentsDB.get(0);
 
         assertThat(studentDB.getFirstName())
                 .as("First name should match")
@@ -204,6 +333,40 @@ public class StudentRepositoryTest {
                 .isEqualTo(lastName);
     }
 
+    @DisplayName("JUnit test for find by email query plan")
+    @Test
+    public void givenStudentObject_whenFindByEmail_thenSingleStatementWithoutFullScan() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        studentRepository.saveAndFlush(student);
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentRepository.findByEmail("fernando@gmail.com"))
+                .hasStatementCount(1)
+                .hasNoFullScans();
+    }
 
+    @DisplayName("JUnit test for name lookup query plan")
+    @Test
+    public void givenStudentObject_whenFindByName_thenSingleStatementWithoutFullScan() {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        studentRepository.saveAndFlush(student);
 
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource,
+                () -> studentRepository.findByJPQLNamedParams("Fernando", "Salas", PageRequest.of(0, 10)))
+                .hasStatementCount(1)
+                .hasNoFullScans();
+    }
 }
@@ -0,0 +1,76 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.config.StudentEmailFilterProperties;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.service.implementation.StudentEmailFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+public class StudentEmailFilterTest {
+    private StudentRepository studentRepository;
+    private StudentEmailFilter studentEmailFilter;
+
+    @BeforeEach
+    public void setup() {
+        studentRepository = mock(StudentRepository.class);
+        StudentEmailFilterProperties properties = new StudentEmailFilterProperties();
+        properties.setExpectedEmails(10000);
+        studentEmailFilter = new StudentEmailFilter(studentRepository, mock(PlatformTransactionManager.class),
+                properties);
+    }
+
+    @DisplayName("JUnit test for the email filter before the table is loaded")
+    @Test
+    public void givenFilterNotLoaded_whenMightContain_thenEveryEmailIsAMaybe() {
+        // when - action or the behavior we are going to test
+        boolean mightContain = studentEmailFilter.mightContain("claudia@gmail.com");
+
+        // then - verify the output
+        assertThat(mightContain).isTrue();
+    }
+
+    @DisplayName("JUnit test for the email filter after loading the table")
+    @Test
+    public void givenLoadedEmails_whenMightContain_thenNoFalseNegatives() {
+        //given - precondition or setup
+        given(studentRepository.streamAll()).willReturn(Stream.of(
+                new StudentView(1L, "Fernando", "Salas", "fernando@gmail.com", 0, null),
+                new StudentView(2L, "Claudia", "Ramos", "claudia@gmail.com", 0, null)));
+
+        // when - action or the behavior we are going to test
+        studentEmailFilter.load();
+        studentEmailFilter.add("lucia@gmail.com");
+
+        // then - verify the output
+        assertThat(studentEmailFilter.mightContain("fernando@gmail.com")).isTrue();
+        assertThat(studentEmailFilter.mightContain("claudia@gmail.com")).isTrue();
+        assertThat(studentEmailFilter.mightContain("lucia@gmail.com")).isTrue();
+        assertThat(studentEmailFilter.mightContain("fernanda@gmail.com")).isFalse();
+    }
+
+    @DisplayName("JUnit test for the email filter false positive rate")
+    @Test
+    public void givenExpectedEmails_whenCheckingUnseenEmails_thenFalsePositivesStayNearTheTarget() {
+        //given - precondition or setup
+        given(studentRepository.streamAll()).willReturn(Stream.empty());
+        studentEmailFilter.load();
+        IntStream.range(0, 10000).forEach(i -> studentEmailFilter.add("student" + i + "@gmail.com"));
+
+        // when - action or the behavior we are going to test
+        long falsePositives = IntStream.range(0, 10000)
+                .filter(i -> studentEmailFilter.mightContain("other" + i + "@gmail.com"))
+                .count();
+
+        // then - verify the output, 1% is configured
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
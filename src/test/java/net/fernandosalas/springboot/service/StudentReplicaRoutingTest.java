@@ -0,0 +1,168 @@
+package net.fernandosalas.springboot.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import net.fernandosalas.springboot.SpringBootTestingMediumApplication;
+import net.fernandosalas.springboot.datasource.ReadYourWrites;
+import net.fernandosalas.springboot.datasource.ReplicaSet;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+// two separate H2 instances without replication, so where a row is found tells which one served the read
+public class StudentReplicaRoutingTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    // nothing listens on port 1, the health check has to take this replica out of the rotation
+    private static final String UNREACHABLE_URL = "jdbc:h2:tcp://localhost:1/mem:unreachable";
+
+    private static ConfigurableApplicationContext context;
+    private static StudentService studentService;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("create table students (id bigint primary key, first_name varchar(255) not null,"
+                    + " last_name varchar(255) not null, email varchar(255) not null, version bigint not null,"
+                    + " updated_at timestamp(6) with time zone)");
+            statement.execute("insert into students values (1000, 'Replica', 'Row', 'replica@gmail.com', 0, null)");
+        }
+        context = new SpringApplicationBuilder(SpringBootTestingMediumApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=" + PRIMARY_URL,
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "spring.datasource.hikari.pool-name=students-primary",
+                        "spring.datasource.hikari.maximum-pool-size=4",
+                        "student.datasource.replicas.enabled=true",
+                        "student.datasource.replicas.nodes[0].url=" + REPLICA_URL,
+                        "student.datasource.replicas.nodes[0].username=sa",
+                        "student.datasource.replicas.nodes[1].url=" + UNREACHABLE_URL,
+                        "student.datasource.replicas.nodes[1].username=sa",
+                        "student.datasource.replicas.check-interval=1h")
+                .run();
+        studentService = context.getBean(StudentService.class);
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        context.close();
+        for (String url : List.of(PRIMARY_URL, REPLICA_URL)) {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("shutdown");
+            }
+        }
+    }
+
+    @DisplayName("JUnit test for read routing to a replica")
+    @Test
+    public void givenRowOnlyOnReplica_whenGetStudentsByName_thenReadFromReplica() {
+        // when - action or the behavior we are going to test
+        List<StudentView> students = studentService.getStudentsByName("Replica", "Row", 10);
+
+        // then - verify the output
+        assertThat(students).extracting(StudentView::id).containsExactly(1000L);
+    }
+
+    @DisplayName("JUnit test for writes going to the primary")
+    @Test
+    public void givenNewStudent_whenSaveStudent_thenWrittenToPrimaryOnly() throws Exception {
+        //given - precondition or setup
+        Student student = Student.builder()
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+
+        // when - action or the behavior we are going to test
+        studentService.saveStudent(student);
+        List<StudentView> fromReplica = studentService.getStudentsByName("Fernando", "Salas", 10);
+        ReadYourWrites.pin();
+        List<StudentView> fromPrimary;
+        try {
+            fromPrimary = studentService.getStudentsByName("Fernando", "Salas", 10);
+        } finally {
+            ReadYourWrites.clear();
+        }
+
+        // then - verify the output
+        assertThat(count(PRIMARY_URL, "fernando@gmail.com")).isEqualTo(1);
+        assertThat(count(REPLICA_URL, "fernando@gmail.com")).isEqualTo(0);
+        assertThat(fromReplica).isEmpty();
+        assertThat(fromPrimary).extracting(StudentView::email).containsExactly("fernando@gmail.com");
+    }
+
+    @DisplayName("JUnit test for unreachable replicas leaving the rotation")
+    @Test
+    public void givenUnreachableReplica_whenReading_thenEveryReadIsServed() {
+        // when - action or the behavior we are going to test
+        Map<String, Boolean> status = context.getBean(ReplicaSet.class).status();
+
+        // then - verify the output
+        assertThat(status).containsEntry("replica-0", true).containsEntry("replica-1", false);
+        for (int i = 0; i < 4; i++) {
+            assertThat(studentService.getStudentsByName("Replica", "Row", 10)).hasSize(1);
+        }
+    }
+
+    @DisplayName("JUnit test for cached lookups being filled from the primary")
+    @Test
+    public void givenRowOnlyOnPrimary_whenGetStudentByIdAndEmail_thenReadFromPrimary() {
+        //given - precondition or setup
+        Student student = studentService.saveStudent(Student.builder()
+                .firstName("Cached")
+                .lastName("Lookup")
+                .email("cached@gmail.com")
+                .build());
+
+        // when - action or the behavior we are going to test
+        Optional<StudentView> byId = studentService.getStudentById(student.getId());
+        Optional<StudentView> byEmail = studentService.getStudentByEmail("cached@gmail.com");
+
+        // then - verify the output
+        assertThat(byId).map(StudentView::email).contains("cached@gmail.com");
+        assertThat(byEmail).map(StudentView::id).contains(student.getId());
+        assertThat(ReadYourWrites.isPinned()).isFalse();
+    }
+
+    @DisplayName("JUnit test for the primary pool taking the Hikari settings")
+    @Test
+    public void givenHikariProperties_whenReplicaRouting_thenPrimaryPoolConfigured() {
+        // when - action or the behavior we are going to test
+        DataSource primary = context.getBean(ReplicaSet.class).primary();
+
+        // then - verify the output
+        assertThat(primary).isInstanceOfSatisfying(HikariDataSource.class, hikari -> {
+            assertThat(hikari.getPoolName()).isEqualTo("students-primary");
+            assertThat(hikari.getMaximumPoolSize()).isEqualTo(4);
+        });
+    }
+
+    private static long count(String url, String email) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from students where email = '" + email + "'")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
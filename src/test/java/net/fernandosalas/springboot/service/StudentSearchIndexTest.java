@@ -0,0 +1,155 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.dto.StudentSearchPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.service.implementation.StudentSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class StudentSearchIndexTest {
+    private StudentRepository studentRepository;
+    private StudentSearchIndex studentSearchIndex;
+    private StudentView fernando;
+    private StudentView fernanda;
+    private StudentView claudia;
+
+    @BeforeEach
+    public void setup() {
+        studentRepository = mock(StudentRepository.class);
+        studentSearchIndex = new StudentSearchIndex(studentRepository, mock(PlatformTransactionManager.class));
+        fernando = new StudentView(1L, "Fernando", "Salas", "fernando@gmail.com", 0, null);
+        fernanda = new StudentView(2L, "Fernanda", "Soto", "fsoto@gmail.com", 0, null);
+        claudia = new StudentView(3L, "Claudia", "Ramos", "claudia@gmail.com", 0, null);
+        studentSearchIndex.put(fernando);
+        studentSearchIndex.put(fernanda);
+        studentSearchIndex.put(claudia);
+    }
+
+    @DisplayName("JUnit test for prefix search across fields")
+    @Test
+    public void givenIndexedStudents_whenSearchingPrefixes_thenEveryTokenMustMatch() {
+        // when - action or the behavior we are going to test
+        StudentSearchPage page = studentSearchIndex.search("fer sal", 0, 10);
+
+        // then - verify the output
+        assertThat(page.content()).containsExactly(fernando);
+        assertThat(page.hasNext()).isFalse();
+    }
+
+    @DisplayName("JUnit test for search ranking")
+    @Test
+    public void givenExactAndPrefixMatches_whenSearching_thenExactMatchRanksFirst() {
+        //given - precondition or setup
+        StudentView fer = new StudentView(4L, "Fer", "Diaz", "fdiaz@gmail.com", 0, null);
+        studentSearchIndex.put(fer);
+
+        // when - action or the behavior we are going to test
+        StudentSearchPage page = studentSearchIndex.search("fer", 0, 10);
+
+        // then - verify the output
+        assertThat(page.content()).first().isEqualTo(fer);
+        assertThat(page.content()).containsExactlyInAnyOrder(fer, fernando, fernanda);
+    }
+
+    @DisplayName("JUnit test for typo tolerant search")
+    @Test
+    public void givenMisspelledName_whenSearching_thenReturnFuzzyMatch() {
+        // when - action or the behavior we are going to test
+        StudentSearchPage page = studentSearchIndex.search("claudai", 0, 10);
+
+        // then - verify the output
+        assertThat(page.content()).containsExactly(claudia);
+    }
+
+    @DisplayName("JUnit test for accent insensitive search")
+    @Test
+    public void givenAccentedName_whenSearchingWithoutAccent_thenReturnStudent() {
+        //given - precondition or setup
+        StudentView jose = new StudentView(4L, "José", "Núñez", "jose@gmail.com", 0, null);
+        studentSearchIndex.put(jose);
+
+        // when - action or the behavior we are going to test
+        StudentSearchPage page = studentSearchIndex.search("jose nunez", 0, 10);
+
+        // then - verify the output
+        assertThat(page.content()).containsExactly(jose);
+    }
+
+    @DisplayName("JUnit test for search index update and removal")
+    @Test
+    public void givenUpdatedAndRemovedStudents_whenSearching_thenOldTermsNoLongerMatch() {
+        //given - precondition or setup
+        studentSearchIndex.put(new StudentView(1L, "Fernando", "Ortiz", "fernando@gmail.com", 1, null));
+        studentSearchIndex.remove(2L);
+
+        // when - action or the behavior we are going to test
+        StudentSearchPage salas = studentSearchIndex.search("salas", 0, 10);
+        StudentSearchPage ortiz = studentSearchIndex.search("ortiz", 0, 10);
+        StudentSearchPage soto = studentSearchIndex.search("soto", 0, 10);
+
+        // then - verify the output
+        assertThat(salas.content()).isEmpty();
+        assertThat(ortiz.content()).extracting(StudentView::id).containsExactly(1L);
+        assertThat(soto.content()).isEmpty();
+        assertThat(studentSearchIndex.size()).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for writes made while the index loads")
+    @Test
+    public void givenWritesDuringLoad_whenLoad_thenSnapshotDoesNotOverwriteThem() {
+        //given - precondition or setup
+        // the snapshot still holds an older Fernando and a student deleted once loading started
+        StudentView staleFernando = new StudentView(1L, "Fernando", "Vega", "fernando@gmail.com", 0, null);
+        StudentView deleted = new StudentView(4L, "Daniel", "Rojas", "drojas@gmail.com", 0, null);
+        given(studentRepository.streamAll()).willReturn(Stream.of(staleFernando, deleted)
+                .peek(row -> {
+                    if (row == staleFernando) {
+                        studentSearchIndex.remove(4L);
+                    }
+                }));
+
+        // when - action or the behavior we are going to test
+        studentSearchIndex.load();
+
+        // then - verify the output
+        assertThat(studentSearchIndex.search("salas", 0, 10).content()).containsExactly(fernando);
+        assertThat(studentSearchIndex.search("vega", 0, 10).content()).isEmpty();
+        assertThat(studentSearchIndex.search("rojas", 0, 10).content()).isEmpty();
+        assertThat(studentSearchIndex.size()).isEqualTo(3);
+    }
+
+    @DisplayName("JUnit test for search pagination")
+    @Test
+    public void givenMoreMatchesThanPageSize_whenSearching_thenReturnPagesInRankOrder() {
+        // when - action or the behavior we are going to test
+        StudentSearchPage first = studentSearchIndex.search("fern", 0, 1);
+        StudentSearchPage second = studentSearchIndex.search("fern", 1, 1);
+
+        // then - verify the output
+        assertThat(first.content()).containsExactly(fernando);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.content()).containsExactly(fernanda);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @DisplayName("JUnit test for search pages beyond the ranked candidates")
+    @Test
+    public void givenPageNumberOverflowingTheOffset_whenSearching_thenReturnEmptyPage() {
+        // when - action or the behavior we are going to test
+        // 2^31 / 50 rounded up: page * size wraps around to a negative int
+        StudentSearchPage page = studentSearchIndex.search("fern", 42_949_673, 50);
+
+        // then - verify the output
+        assertThat(page.content()).isEmpty();
+        assertThat(page.hasNext()).isFalse();
+    }
+}
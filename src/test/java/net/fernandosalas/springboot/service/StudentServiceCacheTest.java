@@ -0,0 +1,116 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.AopTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+@SpringBootTest
+public class StudentServiceCacheTest {
+    @MockBean
+    private StudentRepository studentRepository;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private CacheManager cacheManager;
+    private Student student;
+    private StudentView studentView;
+
+    @BeforeEach
+    public void setup() {
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+        student = Student.builder()
+                .id(1L)
+                .firstName("Fernando")
+                .lastName("Salas")
+                .email("fernando@gmail.com")
+                .build();
+        studentView = StudentView.of(student);
+    }
+
+    @DisplayName("JUnit test for getStudentById cache hit")
+    @Test
+    public void givenCachedStudent_whenGetStudentById_thenRepositoryIsCalledOnce() {
+        //given - precondition or setup
+        given(studentRepository.findViewById(1L)).willReturn(Optional.of(studentView));
+
+        // when - action or the behavior we are going to test
+        studentService.getStudentById(1L);
+        Optional<StudentView> cachedStudent = studentService.getStudentById(1L);
+
+        // then - verify the output
+        assertThat(cachedStudent).contains(studentView);
+        verify(repositoryMock(), times(1)).findViewById(1L);
+    }
+
+    @DisplayName("JUnit test for getStudentByEmail cache hit")
+    @Test
+    public void givenCachedStudent_whenGetStudentByEmail_thenRepositoryIsCalledOnce() {
+        //given - precondition or setup
+        given(studentRepository.findViewByEmail(student.getEmail())).willReturn(Optional.of(studentView));
+
+        // when - action or the behavior we are going to test
+        studentService.getStudentByEmail(student.getEmail());
+        Optional<StudentView> cachedStudent = studentService.getStudentByEmail(student.getEmail());
+
+        // then - verify the output
+        assertThat(cachedStudent).contains(studentView);
+        verify(repositoryMock(), times(1)).findViewByEmail(student.getEmail());
+    }
+
+    @DisplayName("JUnit test for cache eviction on deleteStudent")
+    @Test
+    public void givenCachedStudent_whenDeleteStudent_thenNextLookupGoesToRepository() {
+        //given - precondition or setup
+        given(studentRepository.findViewById(1L)).willReturn(Optional.of(studentView));
+        given(studentRepository.findViewByEmail(student.getEmail())).willReturn(Optional.of(studentView));
+        studentService.getStudentById(1L);
+        studentService.getStudentByEmail(student.getEmail());
+        given(studentRepository.deleteStudentById(1L)).willReturn(1);
+
+        // when - action or the behavior we are going to test
+        studentService.deleteStudent(1L);
+        studentService.getStudentById(1L);
+        studentService.getStudentByEmail(student.getEmail());
+
+        // then - verify the output
+        verify(repositoryMock(), times(2)).findViewById(1L);
+        verify(repositoryMock(), times(2)).findViewByEmail(student.getEmail());
+    }
+
+    @DisplayName("JUnit test for cache eviction on updateStudent")
+    @Test
+    public void givenCachedStudent_whenUpdateStudent_thenNextLookupGoesToRepository() {
+        //given - precondition or setup
+        given(studentRepository.findViewById(1L)).willReturn(Optional.of(studentView));
+        given(studentRepository.updateStudent(eq(1L), eq("Fernando"), eq("Salas"), eq("fernando@gmail.com"), isNull(),
+                any(Instant.class)))
+                .willReturn(1);
+        studentService.getStudentById(1L);
+
+        // when - action or the behavior we are going to test
+        studentService.updateStudent(1L, student, null);
+        studentService.getStudentById(1L);
+
+        // then - verify the output
+        verify(repositoryMock(), times(2)).findViewById(1L);
+    }
+
+    // the mock is wrapped by the transaction and metrics proxies, Mockito verifies the mock itself
+    private StudentRepository repositoryMock() {
+        return AopTestUtils.getUltimateTargetObject(studentRepository);
+    }
+}
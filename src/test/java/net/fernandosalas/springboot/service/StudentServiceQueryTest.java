@@ -0,0 +1,151 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static net.fernandosalas.springboot.datasource.QueryAssert.assertThatQueries;
+
+@SpringBootTest
+public class StudentServiceQueryTest {
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private DataSource dataSource;
+    private List<Long> ids;
+
+    @BeforeEach
+    public void setup() {
+        studentService.saveStudents(IntStream.range(0, 20)
+                .mapToObj(n -> Student.builder()
+                        .firstName("First" + n)
+                        .lastName("Last" + n)
+                        .email("student" + n + "@example.com")
+                        .build())
+                .toList());
+        ids = studentRepository.findAll().stream().map(Student::getId).sorted().toList();
+    }
+
+    @AfterEach
+    public void cleanup() {
+        studentRepository.deleteAllInBatch();
+    }
+
+    @DisplayName("JUnit test for getStudents statement count")
+    @Test
+    public void givenStudentList_whenGetStudents_thenSingleStatementWithoutFullScan() {
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.getStudents(ids.get(4), 10))
+                .hasStatementCount(1)
+                .hasNoFullScans();
+    }
+
+    @DisplayName("JUnit test for getStudentById statement count")
+    @Test
+    public void givenStudentObject_whenGetStudentByIdTwice_thenSingleStatement() {
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> {
+            studentService.getStudentById(ids.get(0));
+            studentService.getStudentById(ids.get(0));
+        }).hasStatementCount(1).hasNoFullScans();
+    }
+
+    @DisplayName("JUnit test for getStudentsByName statement count")
+    @Test
+    public void givenStudentObject_whenGetStudentsByName_thenSingleStatementWithoutFullScan() {
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.getStudentsByName("First3", "Last3", 10))
+                .hasStatementCount(1)
+                .hasNoFullScans();
+    }
+
+    @DisplayName("JUnit test for updateStudent statement count")
+    @Test
+    public void givenExpectedVersion_whenUpdateStudent_thenSingleStatement() {
+        //given - precondition or setup
+        Student update = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        long version = studentRepository.findViewById(ids.get(0)).orElseThrow().version();
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.updateStudent(ids.get(0), update, version))
+                .hasStatementCount(1);
+    }
+
+    @DisplayName("JUnit test for updateStudent statement count(unconditional)")
+    @Test
+    public void givenNoExpectedVersion_whenUpdateStudent_thenSingleStatement() {
+        //given - precondition or setup
+        Student update = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia.ramos@gmail.com")
+                .build();
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.updateStudent(ids.get(0), update, null))
+                .hasStatementCount(1);
+    }
+
+    @DisplayName("JUnit test for updateStudent statement count(same email)")
+    @Test
+    public void givenExpectedVersionAndOwnEmail_whenUpdateStudent_thenSingleStatement() {
+        //given - precondition or setup
+        Student update = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("student0@example.com")
+                .build();
+        long version = studentRepository.findViewById(ids.get(0)).orElseThrow().version();
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        // the email filter answers "maybe" for a stored email, an update must not look it up
+        assertThatQueries(dataSource, () -> studentService.updateStudent(ids.get(0), update, version))
+                .hasStatementCount(1);
+    }
+
+    @DisplayName("JUnit test for updateStudent statement count(same email, unconditional)")
+    @Test
+    public void givenNoExpectedVersionAndOwnEmail_whenUpdateStudent_thenSingleStatement() {
+        //given - precondition or setup
+        Student update = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("student0@example.com")
+                .build();
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.updateStudent(ids.get(0), update, null))
+                .hasStatementCount(1);
+    }
+
+    @DisplayName("JUnit test for deleteStudents statement count")
+    @Test
+    public void givenStudentIds_whenDeleteStudents_thenSingleStatement() {
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatQueries(dataSource, () -> studentService.deleteStudents(ids.subList(0, 5)))
+                .hasStatementCount(1);
+    }
+}
@@ -1,7 +1,16 @@
 package net.fernandosalas.springboot.service;
 
+import net.fernandosalas.springboot.config.StudentBatchProperties;
+import net.fernandosalas.springboot.config.StudentShardingProperties;
+import net.fernandosalas.springboot.dto.StudentBatchDeleteResult;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
 import net.fernandosalas.springboot.entity.Student;
 import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.service.implementation.StudentBatchWriter;
+import net.fernandosalas.springboot.service.implementation.StudentEmailFilter;
+import net.fernandosalas.springboot.service.implementation.StudentSearchIndex;
 import net.fernandosalas.springboot.service.implementation.StudentServiceImplementation;
 
 import static org.mockito.BDDMockito.*;
@@ -14,16 +23,34 @@ import org.junit.jupiter.api.extension.ExtendWith;
 
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 public class StudentServiceTest {
     @Mock
     private StudentRepository studentRepository;
+    @Mock
+    private StudentBatchWriter studentBatchWriter;
+    @Mock
+    private StudentSearchIndex studentSearchIndex;
+    @Mock
+    private StudentEmailFilter studentEmailFilter;
+    @Spy
+    private StudentBatchProperties studentBatchProperties = new StudentBatchProperties();
+    @Spy
+    private StudentShardingProperties studentShardingProperties = new StudentShardingProperties();
     @InjectMocks
     private StudentServiceImplementation studentServiceImplementation;
     private Student student;
@@ -51,6 +78,90 @@ public class StudentServiceTest {
 
         // then - verify the output
         assertThat(savedStudent).isNotNull();
+        verify(studentSearchIndex, times(1)).put(StudentView.of(student));
+    }
+
+    //JUnit test for saveStudent Method with an unseen email
+    @DisplayName("JUnit test for saveStudent Method with an unseen email")
+    @Test
+    public void givenUnseenEmail_whenSaveStudent_thenSkipDuplicateLookup() {
+        //given - precondition or setup
+        given(studentEmailFilter.mightContain(student.getEmail())).willReturn(false);
+        given(studentRepository.save(student)).willReturn(student);
+
+        // when - action or the behavior we are going to test
+        studentServiceImplementation.saveStudent(student);
+
+        // then - verify the output
+        verify(studentRepository, never()).findViewByEmail(student.getEmail());
+        verify(studentEmailFilter, times(1)).add(student.getEmail());
+    }
+
+    //JUnit test for saveStudent Method with a taken email
+    @DisplayName("JUnit test for saveStudent Method with a taken email")
+    @Test
+    public void givenTakenEmail_whenSaveStudent_thenThrowDuplicateKeyWithoutInsert() {
+        //given - precondition or setup
+        given(studentEmailFilter.mightContain(student.getEmail())).willReturn(true);
+        given(studentRepository.findViewByEmail(student.getEmail()))
+                .willReturn(Optional.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        Throwable thrown = catchThrowable(() -> studentServiceImplementation.saveStudent(student));
+
+        // then - verify the output
+        assertThat(thrown).isInstanceOf(DuplicateKeyException.class);
+        verify(studentRepository, never()).save(any(Student.class));
+    }
+
+    //JUnit test for saveStudent Method when the unique index rejects the email
+    @DisplayName("JUnit test for saveStudent Method when the unique index rejects the email")
+    @Test
+    public void givenConcurrentlyTakenEmail_whenSaveStudent_thenThrowDuplicateKey() {
+        //given - precondition or setup
+        given(studentEmailFilter.mightContain(student.getEmail())).willReturn(false);
+        given(studentRepository.save(student)).willThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: \"PUBLIC.UK_STUDENTS_EMAIL_INDEX_B ON PUBLIC.STUDENTS(EMAIL)\""));
+
+        // when - action or the behavior we are going to test
+        Throwable thrown = catchThrowable(() -> studentServiceImplementation.saveStudent(student));
+
+        // then - verify the output
+        assertThat(thrown).isInstanceOf(DuplicateKeyException.class);
+        verify(studentSearchIndex, never()).put(any(StudentView.class));
+    }
+
+    //JUnit test for saveStudents Method
+    @DisplayName("JUnit test for saveStudents Method")
+    @Test
+    public void givenStudentList_whenSaveStudents_thenWriteInChunksAndReportEachItem() {
+        //given - precondition or setup
+        studentBatchProperties.setChunkSize(2);
+        Student student1 = Student.builder()
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        Student student2 = Student.builder()
+                .firstName("Lucia")
+                .lastName("Perez")
+                .email("lucia@gmail.com")
+                .build();
+        given(studentBatchWriter.writeChunk(0, List.of(student, student1)))
+                .willReturn(List.of(StudentBatchResult.updated(0, 1L), StudentBatchResult.created(1, 2L)));
+        given(studentBatchWriter.writeChunk(2, List.of(student2)))
+                .willThrow(new DataIntegrityViolationException("duplicate"));
+
+        // when - action or the behavior we are going to test
+        List<StudentBatchResult> results = studentServiceImplementation
+                .saveStudents(List.of(student, student1, student2));
+
+        // then - verify the output
+        assertThat(results).extracting(StudentBatchResult::status)
+                .containsExactly(StudentBatchResult.Status.UPDATED, StudentBatchResult.Status.CREATED,
+                        StudentBatchResult.Status.FAILED);
+        assertThat(results.get(2).index()).isEqualTo(2);
+        assertThat(results.get(2).error()).isEqualTo("duplicate");
     }
 
     //JUnit test for getAllStudents Method
@@ -65,11 +176,11 @@ public class StudentServiceTest {
                 .email("claudia@gmail.com")
                 .build();
 
-        List<Student> mockStudentList = List.of(student, student1);
-        given(studentRepository.findAll()).willReturn(mockStudentList);
+        List<StudentView> mockStudentList = List.of(StudentView.of(student), StudentView.of(student1));
+        given(studentRepository.findAllViews()).willReturn(mockStudentList);
 
         // when - action or the behavior we are going to test
-        List<Student> studentList = studentServiceImplementation.getAllStudents();
+        List<StudentView> studentList = studentServiceImplementation.getAllStudents();
 
         // then - verify the output
         assertThat(studentList).isNotNull();
@@ -81,63 +192,234 @@ public class StudentServiceTest {
     @Test
     public void givenEmptyStudentList_whenGetAllStudents_thenReturnEmptyStudentList() {
         //given - precondition or setup
-        given(studentRepository.findAll()).willReturn(Collections.emptyList());
+        given(studentRepository.findAllViews()).willReturn(Collections.emptyList());
 
         // when - action or the behavior we are going to test
-        List<Student> studentList = studentServiceImplementation.getAllStudents();
+        List<StudentView> studentList = studentServiceImplementation.getAllStudents();
 
         // then - verify the output
         assertThat(studentList).isEmpty();
         assertThat(studentList).hasSize(0);
     }
 
+    //JUnit test for getStudents Method
+    @DisplayName("JUnit test for getStudents Method")
+    @Test
+    public void givenMoreStudentsThanPageSize_whenGetStudents_thenReturnPageWithNextCursor() {
+        //given - precondition or setup
+        Student student1 = Student.builder()
+                .id(2L)
+                .firstName("Claudia")
+                .lastName("Ramos")
+                .email("claudia@gmail.com")
+                .build();
+        given(studentRepository.findViewsAfter(0L, PageRequest.of(0, 2)))
+                .willReturn(List.of(StudentView.of(student), StudentView.of(student1)));
+
+        // when - action or the behavior we are going to test
+        StudentPage page = studentServiceImplementation.getStudents(0L, 1);
+
+        // then - verify the output
+        assertThat(page.content()).containsExactly(StudentView.of(student));
+        assertThat(page.nextCursor()).isEqualTo(student.getId());
+    }
+
+    @DisplayName("JUnit test for getStudents Method(last page)")
+    @Test
+    public void givenLastPage_whenGetStudents_thenReturnPageWithoutNextCursor() {
+        //given - precondition or setup
+        given(studentRepository.findViewsAfter(0L, PageRequest.of(0, 3)))
+                .willReturn(List.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        StudentPage page = studentServiceImplementation.getStudents(0L, 2);
+
+        // then - verify the output
+        assertThat(page.content()).containsExactly(StudentView.of(student));
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    //JUnit test for exportStudents Method
+    @DisplayName("JUnit test for exportStudents Method")
+    @Test
+    public void givenStudentStream_whenExportStudents_thenConsumeEachStudent() {
+        //given - precondition or setup
+        given(studentRepository.streamAll()).willReturn(Stream.of(StudentView.of(student)));
+        List<StudentView> exported = new ArrayList<>();
+
+        // when - action or the behavior we are going to test
+        studentServiceImplementation.exportStudents(exported::add);
+
+        // then - verify the output
+        assertThat(exported).containsExactly(StudentView.of(student));
+    }
+
     //JUnit test for getStudentById Method
     @DisplayName("JUnit test for getStudentById Method")
     @Test
     public void givenStudentId_whenGetStudentById_thenReturnStudentObject() {
         //given - precondition or setup
         long studentId = 1L;
-        given(studentRepository.findById(studentId)).willReturn(Optional.of(student));
+        given(studentRepository.findViewById(studentId)).willReturn(Optional.of(StudentView.of(student)));
 
         // when - action or the behavior we are going to test
-        Student savedStudent = studentServiceImplementation.getStudentById(studentId).get();
+        StudentView savedStudent = studentServiceImplementation.getStudentById(studentId).get();
 
         // then - verify the output
         assertThat(savedStudent).isNotNull();
     }
 
+    //JUnit test for getStudentsByName Method
+    @DisplayName("JUnit test for getStudentsByName Method")
+    @Test
+    public void givenOversizedLimit_whenGetStudentsByName_thenQueryIsBoundedByMaxPageSize() {
+        //given - precondition or setup
+        given(studentRepository.findByJPQLNamedParams("Fernando", "Salas", PageRequest.of(0, StudentPage.MAX_SIZE)))
+                .willReturn(List.of(StudentView.of(student)));
+
+        // when - action or the behavior we are going to test
+        List<StudentView> studentList = studentServiceImplementation.getStudentsByName("Fernando", "Salas", 1_000_000);
+
+        // then - verify the output
+        assertThat(studentList).containsExactly(StudentView.of(student));
+    }
+
     //JUnit test for updateStudent Method
     @DisplayName("JUnit test for updateStudent Method")
     @Test
     public void givenStudentObject_whenUpdateStudent_thenReturnUpdatedStudent() {
         //given - precondition or setup
-        given(studentRepository.save(student)).willReturn(student);
-
-        // when - action or the behavior we are going to test
         student.setFirstName("Claudia");
         student.setLastName("Ramos");
         student.setEmail("claudia@gmail.com");
-        Student updatedStudent = studentServiceImplementation.updateStudent(student);
+        given(studentRepository.updateStudent(eq(1L), eq("Claudia"), eq("Ramos"), eq("claudia@gmail.com"), eq(3L),
+                any(Instant.class)))
+                .willReturn(1);
+
+        // when - action or the behavior we are going to test
+        Student updatedStudent = studentServiceImplementation.updateStudent(1L, student, 3L).get();
 
         // then - verify the output
         assertThat(updatedStudent.getFirstName()).isEqualTo(student.getFirstName());
         assertThat(updatedStudent.getLastName()).isEqualTo(student.getLastName());
         assertThat(updatedStudent.getEmail()).isEqualTo(student.getEmail());
+        assertThat(updatedStudent.getVersion()).isEqualTo(4L);
+        assertThat(updatedStudent.getUpdatedAt()).isNotNull();
+        verify(studentRepository, never()).findViewById(anyLong());
+    }
+
+    @DisplayName("JUnit test for updateStudent Method(unconditional)")
+    @Test
+    public void givenNoExpectedVersion_whenUpdateStudent_thenReturnUpdatedStudentWithoutReadBack() {
+        //given - precondition or setup
+        given(studentRepository.updateStudent(eq(1L), eq("Fernando"), eq("Salas"), eq("fernando@gmail.com"), isNull(),
+                any(Instant.class)))
+                .willReturn(1);
+
+        // when - action or the behavior we are going to test
+        Student updatedStudent = studentServiceImplementation.updateStudent(1L, student, null).get();
+
+        // then - verify the output
+        assertThat(updatedStudent.getEmail()).isEqualTo("fernando@gmail.com");
+        assertThat(updatedStudent.getUpdatedAt()).isNotNull();
+        verify(studentSearchIndex, times(1)).put(StudentView.of(updatedStudent));
+        verify(studentRepository, never()).findViewById(anyLong());
+    }
+
+    @DisplayName("JUnit test for updateStudent Method(email of another student)")
+    @Test
+    public void givenEmailOfAnotherStudent_whenUpdateStudent_thenThrowDuplicateKeyWithoutLookup() {
+        //given - precondition or setup
+        given(studentRepository.updateStudent(eq(1L), eq("Fernando"), eq("Salas"), eq("fernando@gmail.com"), isNull(),
+                any(Instant.class)))
+                .willThrow(new DataIntegrityViolationException(
+                        "Unique index or primary key violation: \"PUBLIC.UK_STUDENTS_EMAIL_INDEX_B ON PUBLIC.STUDENTS(EMAIL)\""));
+
+        // when - action or the behavior we are going to test
+        Throwable thrown = catchThrowable(() -> studentServiceImplementation.updateStudent(1L, student, null));
+
+        // then - verify the output
+        assertThat(thrown).isInstanceOf(DuplicateKeyException.class);
+        verify(studentRepository, never()).findViewByEmail(any());
+        verify(studentSearchIndex, never()).put(any(StudentView.class));
+    }
+
+    @DisplayName("JUnit test for updateStudent Method(missing student)")
+    @Test
+    public void givenUnknownStudentId_whenUpdateStudent_thenReturnEmpty() {
+        //given - precondition or setup
+        given(studentRepository.updateStudent(eq(1L), eq("Fernando"), eq("Salas"), eq("fernando@gmail.com"), isNull(),
+                any(Instant.class)))
+                .willReturn(0);
+
+        // when - action or the behavior we are going to test
+        Optional<Student> updatedStudent = studentServiceImplementation.updateStudent(1L, student, null);
+
+        // then - verify the output
+        assertThat(updatedStudent).isEmpty();
+    }
+
+    @DisplayName("JUnit test for updateStudent Method(stale version)")
+    @Test
+    public void givenStaleVersion_whenUpdateStudent_thenThrowOptimisticLockingFailure() {
+        //given - precondition or setup
+        given(studentRepository.updateStudent(eq(1L), eq("Fernando"), eq("Salas"), eq("fernando@gmail.com"), eq(3L),
+                any(Instant.class)))
+                .willReturn(0);
+        given(studentRepository.existsById(1L)).willReturn(true);
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatThrownBy(() -> studentServiceImplementation.updateStudent(1L, student, 3L))
+                .isInstanceOf(OptimisticLockingFailureException.class);
     }
 
     //JUnit test to delete Student Method
     @DisplayName("JUnit test to delete Student Method")
     @Test
-    public void givenStudentId_whenDeleteStudent_thenNothing() {
+    public void givenStudentId_whenDeleteStudent_thenReturnTrue() {
         //given - precondition or setup
         long studentId = 1L;
-        willDoNothing().given(studentRepository).deleteById(1L);
+        given(studentRepository.deleteStudentById(studentId)).willReturn(1);
+
+        // when - action or the behavior we are going to test
+        boolean deleted = studentServiceImplementation.deleteStudent(studentId);
+
+        // then - verify the output
+        assertThat(deleted).isTrue();
+        verify(studentRepository, times(1)).deleteStudentById(studentId);
+        verify(studentSearchIndex, times(1)).remove(studentId);
+    }
+
+    @DisplayName("JUnit test to delete Student Method(missing student)")
+    @Test
+    public void givenUnknownStudentId_whenDeleteStudent_thenReturnFalse() {
+        //given - precondition or setup
+        given(studentRepository.deleteStudentById(1L)).willReturn(0);
+
+        // when - action or the behavior we are going to test
+        boolean deleted = studentServiceImplementation.deleteStudent(1L);
+
+        // then - verify the output
+        assertThat(deleted).isFalse();
+        verify(studentSearchIndex, never()).remove(1L);
+    }
+
+    //JUnit test to delete Students Method
+    @DisplayName("JUnit test to delete Students Method")
+    @Test
+    public void givenStudentIds_whenDeleteStudents_thenDeleteInChunks() {
+        //given - precondition or setup
+        studentBatchProperties.setChunkSize(2);
+        given(studentRepository.deleteStudentsByIds(List.of(1L, 2L))).willReturn(2);
+        given(studentRepository.deleteStudentsByIds(List.of(3L))).willReturn(0);
 
         // when - action or the behavior we are going to test
-        studentServiceImplementation.deleteStudent(studentId);
+        StudentBatchDeleteResult result = studentServiceImplementation.deleteStudents(List.of(1L, 2L, 2L, 3L));
 
         // then - verify the output
-        verify(studentRepository, times(1)).deleteById(studentId);
+        assertThat(result.requested()).isEqualTo(3);
+        assertThat(result.deleted()).isEqualTo(2);
     }
 
 }
@@ -0,0 +1,343 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.SpringBootTestingMediumApplication;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentPage;
+import net.fernandosalas.springboot.dto.StudentView;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.repository.StudentRepository;
+import net.fernandosalas.springboot.sharding.StudentShards;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+public class StudentShardingTest {
+
+    private static final int SHARDS = 3;
+    private static final List<String> SHARD_URLS = IntStream.range(0, SHARDS)
+            .mapToObj(shard -> "jdbc:h2:mem:shard-" + shard + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+            .toList();
+
+    private static ConfigurableApplicationContext context;
+    private static StudentService studentService;
+
+    @BeforeAll
+    public static void setUp() {
+        List<String> properties = new ArrayList<>(List.of("spring.jpa.hibernate.ddl-auto=create",
+                "student.sharding.enabled=true"));
+        for (int shard = 0; shard < SHARDS; shard++) {
+            properties.add("student.sharding.shards[" + shard + "].url=" + SHARD_URLS.get(shard));
+            properties.add("student.sharding.shards[" + shard + "].username=sa");
+        }
+        context = new SpringApplicationBuilder(SpringBootTestingMediumApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        studentService = context.getBean(StudentService.class);
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        context.close();
+        for (String url : SHARD_URLS) {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("shutdown");
+            }
+        }
+    }
+
+    @DisplayName("JUnit test for id based placement and point lookups")
+    @Test
+    public void givenSavedStudents_whenGetStudentById_thenEachRowLivesOnTheShardOfItsId() throws Exception {
+        //given - precondition or setup
+        List<Student> students = new ArrayList<>();
+        for (int n = 0; n < 30; n++) {
+            students.add(studentService.saveStudent(student("point" + n)));
+        }
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        for (Student student : students) {
+            int shard = (int) (student.getId() % SHARDS);
+            assertThat(count(SHARD_URLS.get(shard), student.getEmail())).isEqualTo(1);
+            assertThat(studentService.getStudentById(student.getId()))
+                    .hasValueSatisfying(view -> assertThat(view.email()).isEqualTo(student.getEmail()));
+        }
+        assertThat(students).extracting(student -> (int) (student.getId() % SHARDS)).contains(0, 1, 2);
+    }
+
+    @DisplayName("JUnit test for fan-out reads merged across shards")
+    @Test
+    public void givenStudentsOnEveryShard_whenReadingAcrossShards_thenResultsAreMergedInIdOrder() {
+        //given - precondition or setup
+        List<Student> batch = new ArrayList<>();
+        for (int n = 0; n < 40; n++) {
+            batch.add(student("fanout" + n));
+        }
+        batch.add(Student.builder().firstName("Same").lastName("Name").email("same1@example.com").build());
+        batch.add(Student.builder().firstName("Same").lastName("Name").email("same2@example.com").build());
+        batch.add(Student.builder().firstName("Same").lastName("Name").email("same3@example.com").build());
+
+        // when - action or the behavior we are going to test
+        List<StudentBatchResult> results = studentService.saveStudents(batch);
+        List<StudentView> all = new ArrayList<>();
+        StudentPage page = studentService.getStudents(0, 7);
+        all.addAll(page.content());
+        while (page.nextCursor() != null) {
+            page = studentService.getStudents(page.nextCursor(), 7);
+            all.addAll(page.content());
+        }
+
+        // then - verify the output
+        assertThat(results).extracting(StudentBatchResult::index).containsExactlyElementsOf(
+                IntStream.range(0, batch.size()).boxed().toList());
+        assertThat(results).allMatch(result -> result.status() == StudentBatchResult.Status.CREATED);
+        assertThat(all).extracting(StudentView::id).isSorted().doesNotHaveDuplicates()
+                .containsAll(results.stream().map(StudentBatchResult::id).toList());
+        assertThat(studentService.getStudentByEmail("fanout17@example.com")).isPresent();
+        assertThat(studentService.getStudentsByName("Same", "Name", 10)).extracting(StudentView::email)
+                .containsExactlyInAnyOrder("same1@example.com", "same2@example.com", "same3@example.com");
+        assertThat(studentService.getStudentsByName("Same", "Name", 2)).hasSize(2)
+                .extracting(StudentView::id).isSorted();
+    }
+
+    @DisplayName("JUnit test for exports merged lazily across shards")
+    @Test
+    public void givenMoreRowsThanTheShardBuffers_whenExportStudents_thenRowsStreamInIdOrder() {
+        //given - precondition or setup
+        List<Student> batch = new ArrayList<>();
+        for (int n = 0; n < 2000; n++) {
+            batch.add(student("export" + n));
+        }
+        List<Long> saved = studentService.saveStudents(batch).stream().map(StudentBatchResult::id).toList();
+        StudentRepository studentRepository = context.getBean(StudentRepository.class);
+
+        // when - action or the behavior we are going to test
+        List<Long> exported = new ArrayList<>();
+        studentService.exportStudents(view -> exported.add(view.id()));
+        List<StudentView> firstRows;
+        try (Stream<StudentView> rows = studentRepository.streamAll()) {
+            firstRows = rows.limit(10).toList();
+        }
+
+        // then - verify the output
+        assertThat(exported).isSorted().doesNotHaveDuplicates().containsAll(saved);
+        assertThat(firstRows).extracting(StudentView::id).containsExactlyElementsOf(exported.subList(0, 10));
+    }
+
+    @DisplayName("JUnit test for more concurrent exports than fan-out threads")
+    @Test
+    public void givenMoreConcurrentExportsThanFanOutThreads_whenExportStudents_thenEveryExportCompletes() throws Exception {
+        //given - precondition or setup
+        // more rows per shard than a cursor buffer holds, so readers wait on their consumers
+        List<Student> batch = new ArrayList<>();
+        for (int n = 0; n < 2000; n++) {
+            batch.add(student("concurrent" + n));
+        }
+        studentService.saveStudents(batch);
+        // 40 exports of 3 cursors each, the fan-out pool has 10 threads and every shard pool 10 connections
+        int exports = 40;
+        ExecutorService consumers = Executors.newFixedThreadPool(exports);
+
+        // when - action or the behavior we are going to test
+        List<Future<Long>> counts = new ArrayList<>();
+        for (int n = 0; n < exports; n++) {
+            counts.add(consumers.submit(() -> {
+                AtomicLong rows = new AtomicLong();
+                studentService.exportStudents(view -> rows.incrementAndGet());
+                return rows.get();
+            }));
+        }
+
+        // then - verify the output
+        try {
+            for (Future<Long> count : counts) {
+                assertThat(count.get(60, TimeUnit.SECONDS)).isGreaterThanOrEqualTo(batch.size());
+            }
+        } finally {
+            consumers.shutdownNow();
+        }
+    }
+
+    @DisplayName("JUnit test for a bulk write where one shard fails")
+    @Test
+    public void givenTakenEmailOnOneShard_whenSaveStudents_thenOnlyThatShardsItemsFail() throws Exception {
+        //given - precondition or setup
+        // the same email twice in one batch, past the lookup of stored emails; the second insert hits the unique index
+        StudentShards shards = context.getBean(StudentShards.class);
+        List<Student> batch = new ArrayList<>();
+        batch.add(student("partial-taken"));
+        batch.add(student("partial-taken"));
+        int failingShard = shards.shardOf(batch.get(0));
+        for (int n = 0; n < 20; n++) {
+            batch.add(student("partial" + n));
+        }
+        List<Integer> batchShards = batch.stream().map(shards::shardOf).toList();
+
+        // when - action or the behavior we are going to test
+        List<StudentBatchResult> results = studentService.saveStudents(batch);
+
+        // then - verify the output
+        assertThat(batchShards).anyMatch(shard -> shard != failingShard);
+        for (int i = 0; i < batch.size(); i++) {
+            String email = batch.get(i).getEmail();
+            if (batchShards.get(i) == failingShard) {
+                assertThat(results.get(i).status()).isEqualTo(StudentBatchResult.Status.FAILED);
+                assertThat(results.get(i).error()).isNotNull();
+                assertThat(count(SHARD_URLS.get(failingShard), email)).isEqualTo(0);
+            } else {
+                assertThat(results.get(i).status()).isEqualTo(StudentBatchResult.Status.CREATED);
+                assertThat(count(SHARD_URLS.get(batchShards.get(i)), email)).isEqualTo(1);
+                assertThat(studentService.searchStudents(email, 0, 10).content())
+                        .extracting(StudentView::email).contains(email);
+            }
+        }
+    }
+
+    @DisplayName("JUnit test for an update taking an email stored on another shard")
+    @Test
+    public void givenEmailStoredOnAnotherShard_whenUpdateStudent_thenThrowDuplicateKey() throws Exception {
+        //given - precondition or setup
+        Student student = studentService.saveStudent(student("moving"));
+        Student other = otherShard(student, "moving-target");
+
+        // when - action or the behavior we are going to test
+        Throwable thrown = catchThrowable(() -> studentService.updateStudent(student.getId(), Student.builder()
+                .firstName("Moving")
+                .lastName("Student")
+                .email(other.getEmail())
+                .build(), null));
+        Optional<Student> ownEmail = studentService.updateStudent(student.getId(), Student.builder()
+                .firstName("Moving")
+                .lastName("Student")
+                .email(student.getEmail())
+                .build(), null);
+
+        // then - verify the output
+        assertThat(thrown).isInstanceOf(DuplicateKeyException.class);
+        assertThat(countOnEveryShard(other.getEmail())).isEqualTo(1);
+        assertThat(ownEmail).isPresent();
+    }
+
+    @DisplayName("JUnit test for a bulk update taking an email stored on another shard")
+    @Test
+    public void givenEmailStoredOnAnotherShard_whenSaveStudents_thenOnlyThatItemFails() throws Exception {
+        //given - precondition or setup
+        Student student = studentService.saveStudent(student("bulk-moving"));
+        Student other = otherShard(student, "bulk-moving-target");
+        List<Student> batch = List.of(
+                Student.builder()
+                        .id(student.getId())
+                        .firstName("Moving")
+                        .lastName("Student")
+                        .email(other.getEmail())
+                        .build(),
+                student("bulk-moving-new"));
+
+        // when - action or the behavior we are going to test
+        List<StudentBatchResult> results = studentService.saveStudents(batch);
+
+        // then - verify the output
+        assertThat(results).extracting(StudentBatchResult::index).containsExactly(0, 1);
+        assertThat(results).extracting(StudentBatchResult::status)
+                .containsExactly(StudentBatchResult.Status.FAILED, StudentBatchResult.Status.CREATED);
+        assertThat(results.get(0).id()).isEqualTo(student.getId());
+        assertThat(countOnEveryShard(other.getEmail())).isEqualTo(1);
+        assertThat(countOnEveryShard(student.getEmail())).isEqualTo(1);
+    }
+
+    @DisplayName("JUnit test for repository methods without a routing")
+    @Test
+    public void givenRepositoryMethodWithoutShardKeyOrFanOut_whenCalled_thenItIsRefused() {
+        //given - precondition or setup
+        StudentRepository studentRepository = context.getBean(StudentRepository.class);
+
+        // when - action or the behavior we are going to test
+        // then - verify the output
+        assertThatThrownBy(studentRepository::deleteAll)
+                .isInstanceOf(UnsupportedOperationException.class)
+                .hasMessageContaining("deleteAll");
+    }
+
+    @DisplayName("JUnit test for updates and deletes routed by id")
+    @Test
+    public void givenSavedStudent_whenUpdateAndDelete_thenOnlyItsShardChanges() throws Exception {
+        //given - precondition or setup
+        Student student = studentService.saveStudent(student("routed"));
+        String url = SHARD_URLS.get((int) (student.getId() % SHARDS));
+
+        // when - action or the behavior we are going to test
+        studentService.updateStudent(student.getId(), Student.builder()
+                .firstName("Routed")
+                .lastName("Updated")
+                .email("routed-updated@example.com")
+                .build(), null);
+        long updatedRows = count(url, "routed-updated@example.com");
+        boolean deleted = studentService.deleteStudent(student.getId());
+
+        // then - verify the output
+        assertThat(updatedRows).isEqualTo(1);
+        assertThat(deleted).isTrue();
+        assertThat(count(url, "routed-updated@example.com")).isEqualTo(0);
+        assertThat(studentService.getStudentById(student.getId())).isEmpty();
+    }
+
+    private static Student student(String name) {
+        return Student.builder()
+                .firstName("First" + name)
+                .lastName("Last" + name)
+                .email(name + "@example.com")
+                .build();
+    }
+
+    // a student saved on another shard than the given one
+    private static Student otherShard(Student student, String name) {
+        for (int n = 0; ; n++) {
+            Student other = studentService.saveStudent(student(name + n));
+            if (other.getId() % SHARDS != student.getId() % SHARDS) {
+                return other;
+            }
+        }
+    }
+
+    private static long countOnEveryShard(String email) throws Exception {
+        long count = 0;
+        for (String url : SHARD_URLS) {
+            count += count(url, email);
+        }
+        return count;
+    }
+
+    private static long count(String url, String email) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select count(*) from students where email = '" + email + "'")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package net.fernandosalas.springboot.service;
+
+import net.fernandosalas.springboot.SpringBootTestingMediumApplication;
+import net.fernandosalas.springboot.config.StudentWriteBehindProperties;
+import net.fernandosalas.springboot.dto.StudentBatchResult;
+import net.fernandosalas.springboot.dto.StudentWriteStatus;
+import net.fernandosalas.springboot.entity.Student;
+import net.fernandosalas.springboot.service.implementation.StudentBatchWriter;
+import net.fernandosalas.springboot.service.implementation.StudentEmailFilter;
+import net.fernandosalas.springboot.service.implementation.StudentSearchIndex;
+import net.fernandosalas.springboot.service.implementation.StudentWriteBehindQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class StudentWriteBehindQueueTest {
+
+    @DisplayName("JUnit test for write-behind drain on graceful shutdown")
+    @Test
+    public void givenAcknowledgedWrites_whenContextCloses_thenEveryWriteIsPersisted() throws Exception {
+        //given - precondition or setup
+        // the database outlives the context so the rows can be counted after shutdown
+        String url = "jdbc:h2:mem:write-behind-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootTestingMediumApplication.class)
+                .web(WebApplicationType.NONE)
+                // arguments rather than default properties, application.properties would override those
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--student.write-behind.enabled=true",
+                        "--student.write-behind.batch-size=100",
+                        "--student.write-behind.flush-interval=1s");
+        StudentService studentService = context.getBean(StudentService.class);
+
+        List<StudentWriteStatus> acknowledged = new ArrayList<>();
+        for (int n = 0; n < 2000; n++) {
+            acknowledged.add(studentService.submitStudent(Student.builder()
+                    .firstName("First" + n)
+                    .lastName("Last" + n)
+                    .email("student" + n + "@example.com")
+                    .build()));
+        }
+
+        // when - action or the behavior we are going to test
+        context.close();
+
+        // then - verify the output
+        assertThat(acknowledged).allMatch(status -> status.status() == StudentWriteStatus.Status.PENDING);
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("select count(*) from students")) {
+                resultSet.next();
+                assertThat(resultSet.getLong(1)).isEqualTo(acknowledged.size());
+            }
+            statement.execute("shutdown");
+        }
+    }
+
+    @DisplayName("JUnit test for the write-behind flusher outliving a failed batch")
+    @Test
+    public void givenBatchFailingWithAnyRuntimeException_whenFlushing_thenLaterWritesAreStillFlushed() throws Exception {
+        //given - precondition or setup
+        StudentBatchWriter studentBatchWriter = mock(StudentBatchWriter.class);
+        given(studentBatchWriter.writeChunk(eq(0), anyList()))
+                .willThrow(new TransactionSystemException("Could not commit JPA transaction"))
+                .willReturn(List.of(StudentBatchResult.created(0, 2L)));
+        StudentWriteBehindProperties properties = new StudentWriteBehindProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(1);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        StudentWriteBehindQueue studentWriteBehindQueue = new StudentWriteBehindQueue(studentBatchWriter,
+                mock(StudentSearchIndex.class), mock(StudentEmailFilter.class), new ConcurrentMapCacheManager(), properties);
+        studentWriteBehindQueue.start();
+
+        // when - action or the behavior we are going to test
+        StudentWriteStatus failed = studentWriteBehindQueue.submit(Student.builder()
+                .firstName("First1").lastName("Last1").email("student1@example.com").build());
+        StudentWriteStatus written = studentWriteBehindQueue.submit(Student.builder()
+                .firstName("First2").lastName("Last2").email("student2@example.com").build());
+        // the flusher thread has to get to the second write, stop() would drain it on its own
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (studentWriteBehindQueue.status(written.trackingId()).orElseThrow().status() == StudentWriteStatus.Status.PENDING
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        boolean flusherAlive = studentWriteBehindQueue.size() == 0;
+        studentWriteBehindQueue.stop();
+
+        // then - verify the output
+        assertThat(flusherAlive).isTrue();
+        assertThat(studentWriteBehindQueue.status(failed.trackingId())).hasValueSatisfying(status -> {
+            assertThat(status.status()).isEqualTo(StudentWriteStatus.Status.FAILED);
+            assertThat(status.error()).isEqualTo("Could not commit JPA transaction");
+        });
+        assertThat(studentWriteBehindQueue.status(written.trackingId())).hasValueSatisfying(status -> {
+            assertThat(status.status()).isEqualTo(StudentWriteStatus.Status.WRITTEN);
+            assertThat(status.id()).isEqualTo(2L);
+        });
+    }
+}